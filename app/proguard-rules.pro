@@ -31,4 +31,8 @@
 }
 -keep class com.hchen.superlyricapi.** {*;}
 -keep class com.hchen.dexkitcache.DexkitCache$MemberData {*;}
--keep class com.hchen.superlyric.meizu.helper.MeiZuNotification {*;}
\ No newline at end of file
+-keep class com.hchen.superlyric.meizu.helper.HookCache$CacheEntry {*;}
+-keep class com.hchen.superlyric.meizu.helper.HookCache$MemberData {*;}
+-keep class com.hchen.superlyric.meizu.helper.MeiZuNotification {*;}
+-keep class com.hchen.superlyric.meizu.metrics.StartupTracer$ChromeTrace {*;}
+-keep class com.hchen.superlyric.meizu.metrics.StartupTracer$TraceEvent {*;}
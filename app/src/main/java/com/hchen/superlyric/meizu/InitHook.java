@@ -24,18 +24,18 @@ import static com.hchen.hooktool.log.XposedLog.logD;
 import static com.hchen.hooktool.log.XposedLog.logE;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
+import com.hchen.collect.CollectEntry;
 import com.hchen.collect.CollectMap;
-import com.hchen.dexkitcache.DexkitCache;
 import com.hchen.hooktool.HCBase;
 import com.hchen.hooktool.HCEntrance;
 import com.hchen.hooktool.HCInit;
+import com.hchen.superlyric.meizu.helper.DexkitHelper;
+import com.hchen.superlyric.meizu.metrics.StartupTracer;
 
-import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Map;
-import java.util.Objects;
-import java.util.function.BiFunction;
 
 import de.robv.android.xposed.callbacks.XC_LoadPackage;
 
@@ -46,42 +46,30 @@ import de.robv.android.xposed.callbacks.XC_LoadPackage;
  */
 public class InitHook extends HCEntrance {
     private static final String TAG = "SuperLyric";
+    // 按包名懒加载的 Hook 类，只有目标应用才会创建自己的 Hook 实例
     private static final HashMap<String, HashMap<String, HookClassData>> mHookClassDataMap = new HashMap<>();
 
-    static {
-        mHookClassDataMap.clear();
-        BiFunction<String, String, HookClassData> biFunction = (packageName, fullClassPath) -> {
-            Map<String, HookClassData> map = mHookClassDataMap.computeIfAbsent(packageName, k -> new HashMap<>());
-
-            return map.computeIfAbsent(fullClassPath, k -> {
-                try {
-                    Class<?> clazz = Objects.requireNonNull(InitHook.class.getClassLoader()).loadClass(fullClassPath);
-                    return new HookClassData(clazz, packageName, fullClassPath, false, false, false);
-                } catch (Throwable throwable) {
-                    logE(TAG, "Failed load class!!", throwable);
-                    return null;
-                }
-            });
-        };
+    /**
+     * 获取指定包名的 Hook 类
+     *
+     * @return 非目标应用返回 null
+     */
+    @Nullable
+    private static HashMap<String, HookClassData> getHookClassDataMap(@NonNull String packageName) {
+        HashMap<String, HookClassData> map = mHookClassDataMap.get(packageName);
+        if (map != null) return map;
+        if (!CollectMap.isTargetPackage(packageName)) return null;
+
+        long start = System.nanoTime();
+        HashMap<String, HookClassData> hookClassDataMap = new HashMap<>();
+        for (CollectEntry entry : CollectMap.getEntries(packageName)) {
+            hookClassDataMap.put(entry.fullClassName(), new HookClassData(entry, packageName));
+        }
 
-        CollectMap.getOnLoadPackageMap().forEach((packageName, fullClassPaths) -> {
-            for (String fullClassPath : fullClassPaths) {
-                HookClassData data = biFunction.apply(packageName, fullClassPath);
-                if (data != null) data.isOnLoadPackage = true;
-            }
-        });
-        CollectMap.getOnApplicationMap().forEach((packageName, fullClassPaths) -> {
-            for (String fullClassPath : fullClassPaths) {
-                HookClassData data = biFunction.apply(packageName, fullClassPath);
-                if (data != null) data.isOnApplication = true;
-            }
-        });
-        CollectMap.getOnZygoteList().forEach((packageName, fullClassPaths) -> {
-            for (String fullClassPath : fullClassPaths) {
-                HookClassData data = biFunction.apply(packageName, fullClassPath);
-                if (data != null) data.isLoadOnZygote = true;
-            }
-        });
+        mHookClassDataMap.put(packageName, hookClassDataMap);
+        logD(TAG, "Resolved " + hookClassDataMap.size() + " hook class(es) for " + packageName +
+                " in " + (System.nanoTime() - start) / 1000 + "us");
+        return hookClassDataMap;
     }
 
     @NonNull
@@ -110,17 +98,28 @@ public class InitHook extends HCEntrance {
     @Override
     public void onLoadPackage(@NonNull XC_LoadPackage.LoadPackageParam loadPackageParam) throws Throwable {
         try {
-            if (loadPackageParam.appInfo != null) {
-                DexkitCache.init(
-                        "superlyric",
-                        loadPackageParam.classLoader,
-                        loadPackageParam.appInfo.sourceDir,
-                        loadPackageParam.appInfo.dataDir
-                );
-            }
-            if (mHookClassDataMap.containsKey(loadPackageParam.packageName)) {
-                HCInit.initLoadPackageParam(loadPackageParam);
-                for (HookClassData data : Objects.requireNonNull(mHookClassDataMap.get(loadPackageParam.packageName)).values()) {
+            HashMap<String, HookClassData> hookClassDataMap = getHookClassDataMap(loadPackageParam.packageName);
+            if (hookClassDataMap != null) {
+                // 推送、下载等无关进程不需要任何 Hook，连同 DexKit 等准备工作一起跳过
+                ArrayList<HookClassData> targets = new ArrayList<>(hookClassDataMap.size());
+                for (HookClassData data : hookClassDataMap.values()) {
+                    if (data.entry.isTargetProcess(loadPackageParam.packageName, loadPackageParam.processName))
+                        targets.add(data);
+                }
+                if (targets.isEmpty()) {
+                    logD(TAG, "Skip process: " + loadPackageParam.processName);
+                    return;
+                }
+
+                StartupTracer.Span prepareSpan = StartupTracer.begin("load_package", "prepare");
+                try {
+                    DexkitHelper.prepare(loadPackageParam);
+                    HCInit.initLoadPackageParam(loadPackageParam);
+                } finally {
+                    prepareSpan.close();
+                }
+                for (HookClassData data : targets) {
+                    StartupTracer.Span span = StartupTracer.begin("load_package", data.fullClassPath);
                     try {
                         if (data.isOnApplication || data.isOnLoadPackage) data.initialization();
                         if (data.isOnApplication) data.hcBase.onApplication();
@@ -128,28 +127,36 @@ public class InitHook extends HCEntrance {
                         logD(TAG, "Initialization hook on load package phase: " + data.fullClassPath);
                     } catch (Throwable throwable) {
                         logE(TAG, "Failed to load hook on load package phase: " + data.fullClassPath, throwable);
+                    } finally {
+                        span.close();
                     }
                 }
             }
         } catch (Throwable e) {
             logE(TAG, "InitHook error: ", e);
         } finally {
-            DexkitCache.close();
+            DexkitHelper.close();
         }
     }
 
     @Override
     public void onInitZygote(@NonNull StartupParam startupParam) throws Throwable {
-        for (HashMap<String, HookClassData> map : mHookClassDataMap.values()) {
+        for (String packageName : CollectMap.getZygotePackages()) {
+            HashMap<String, HookClassData> map = getHookClassDataMap(packageName);
+            if (map == null) continue;
+
             for (HookClassData data : map.values()) {
+                if (!data.isLoadOnZygote) continue;
+
+                StartupTracer.Span span = StartupTracer.begin("zygote", data.fullClassPath);
                 try {
-                    if (data.isLoadOnZygote) {
-                        data.initialization();
-                        data.hcBase.onZygote();
-                        logD(TAG, "Initialization hook on zygote phase: " + data.fullClassPath);
-                    }
+                    data.initialization();
+                    data.hcBase.onZygote();
+                    logD(TAG, "Initialization hook on zygote phase: " + data.fullClassPath);
                 } catch (Throwable throwable) {
                     logE(TAG, "Failed to load hook on zygote phase: " + data.fullClassPath, throwable);
+                } finally {
+                    span.close();
                 }
             }
         }
@@ -157,7 +164,7 @@ public class InitHook extends HCEntrance {
 
     private static class HookClassData {
         @NonNull
-        Class<?> clazz;
+        CollectEntry entry;
         HCBase hcBase;
         @NonNull
         String packageName;
@@ -167,19 +174,18 @@ public class InitHook extends HCEntrance {
         boolean isOnApplication;
         boolean isLoadOnZygote;
 
-        public HookClassData(@NonNull Class<?> clazz, @NonNull String packageName, @NonNull String fullClassPath,
-                             boolean isOnLoadPackage, boolean isOnApplication, boolean isLoadOnZygote) {
-            this.clazz = clazz;
+        public HookClassData(@NonNull CollectEntry entry, @NonNull String packageName) {
+            this.entry = entry;
             this.packageName = packageName;
-            this.fullClassPath = fullClassPath;
-            this.isOnLoadPackage = isOnLoadPackage;
-            this.isOnApplication = isOnApplication;
-            this.isLoadOnZygote = isLoadOnZygote;
+            this.fullClassPath = entry.fullClassName();
+            this.isOnLoadPackage = entry.isOnLoadPackage();
+            this.isOnApplication = entry.isOnApplication();
+            this.isLoadOnZygote = entry.isOnZygote();
         }
 
-        public void initialization() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException, InstantiationException {
+        public void initialization() {
             if (hcBase == null) {
-                hcBase = (HCBase) clazz.getDeclaredConstructor().newInstance();
+                hcBase = (HCBase) entry.newInstance();
             }
         }
 
@@ -187,8 +193,7 @@ public class InitHook extends HCEntrance {
         @Override
         public String toString() {
             return "HookClassData{" +
-                    "clazz=" + clazz +
-                    ", packageName='" + packageName + '\'' +
+                    "packageName='" + packageName + '\'' +
                     ", fullClassPath='" + fullClassPath + '\'' +
                     ", isOnLoadPackage=" + isOnLoadPackage +
                     ", isOnApplication=" + isOnApplication +
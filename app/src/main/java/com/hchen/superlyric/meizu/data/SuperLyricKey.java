@@ -37,6 +37,7 @@ public class SuperLyricKey {
     public static final String SUPER_LYRIC_OLD = "Super_Lyric";
 
     public static final String SUPER_LYRIC_BINDER = "super_lyric_binder";
+    public static final String SUPER_LYRIC_BINDER_V2 = "super_lyric_binder_v2";
     public static final String SUPER_LYRIC_INFO = "super_lyric_info";
 
     public static final String SUPER_LYRIC_EXEMPT_PACKAGE = "super_lyric_exempt_package";
@@ -0,0 +1,239 @@
+/*
+ * This file is part of SuperLyric.
+
+ * SuperLyric is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HChenX
+ */
+package com.hchen.superlyric.meizu.dispatch;
+
+import static com.hchen.hooktool.log.XposedLog.logW;
+
+import android.os.Bundle;
+import android.os.IBinder;
+import android.os.RemoteException;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.hchen.superlyric.meizu.data.SuperLyricKey;
+import com.hchen.superlyricapi.ISuperLyricDistributor;
+import com.hchen.superlyricapi.ISuperLyricDistributorV2;
+import com.hchen.superlyricapi.SuperLyricData;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 歌词分发通道
+ * <p>
+ * 优先使用 oneway 且支持批量分发的 {@link ISuperLyricDistributorV2}，
+ * 接收端版本较旧时回退到同步的 {@link ISuperLyricDistributor}。
+ * <p>
+ * 接收端支持图标句柄时，每个图标只在第一次出现时完整发送，之后的歌词只携带句柄。
+ * 句柄数超过 {@link #MAX_REGISTERED_ICONS} 时，被淘汰的句柄会在同一批次中通知接收端释放。
+ *
+ * @author 焕晨HChen
+ */
+public final class DistributorChannel {
+    private static final String TAG = "DistributorChannel";
+    private static final int MAX_REGISTERED_ICONS = 32;
+    @Nullable
+    private final ISuperLyricDistributor legacy;
+    @Nullable
+    private final ISuperLyricDistributorV2 distributor;
+    private final int capabilities;
+    // 句柄只在当前连接内有效，连接重建时会创建新的通道与注册表
+    private final IconRegistry iconRegistry = new IconRegistry(MAX_REGISTERED_ICONS);
+
+    private DistributorChannel(@Nullable ISuperLyricDistributor legacy, @Nullable ISuperLyricDistributorV2 distributor, int capabilities) {
+        this.legacy = legacy;
+        this.distributor = distributor;
+        this.capabilities = capabilities;
+    }
+
+    /**
+     * 根据系统下发的 Binder 信息建立通道
+     *
+     * @return 无可用 Binder 时返回 null
+     */
+    @Nullable
+    public static DistributorChannel create(@NonNull Bundle bundle) {
+        IBinder binder = bundle.getBinder(SuperLyricKey.SUPER_LYRIC_BINDER_V2);
+        if (binder != null) {
+            ISuperLyricDistributorV2 distributor = ISuperLyricDistributorV2.Stub.asInterface(binder);
+            try {
+                int capabilities = distributor.getCapabilities(ISuperLyricDistributorV2.VERSION);
+                return new DistributorChannel(null, distributor, capabilities);
+            } catch (RemoteException | RuntimeException e) {
+                logW(TAG, "Failed to negotiate with distributor v2, fallback to legacy!!", e);
+            }
+        }
+
+        binder = bundle.getBinder(SuperLyricKey.SUPER_LYRIC_BINDER);
+        if (binder == null) return null;
+        return new DistributorChannel(ISuperLyricDistributor.Stub.asInterface(binder), null, 0);
+    }
+
+    /**
+     * 通道所使用的 Binder，用于监听接收端死亡
+     */
+    @NonNull
+    public IBinder getBinder() {
+        return distributor != null ? distributor.asBinder() : Objects.requireNonNull(legacy).asBinder();
+    }
+
+    public boolean isLegacy() {
+        return distributor == null;
+    }
+
+    public boolean hasCapability(int capability) {
+        return (capabilities & capability) != 0;
+    }
+
+    /**
+     * 按顺序分发一组事件
+     */
+    public void deliver(@NonNull List<LyricEvent> events) throws RemoteException {
+        if (distributor == null) {
+            for (LyricEvent event : events) {
+                deliverLegacy(event);
+            }
+            return;
+        }
+
+        if (hasCapability(ISuperLyricDistributorV2.CAPABILITY_ICON_HANDLE)) {
+            deliverWithIconHandles(distributor, events);
+            return;
+        }
+
+        if (events.size() > 1 && hasCapability(ISuperLyricDistributorV2.CAPABILITY_BATCH)) {
+            int[] kinds = new int[events.size()];
+            ArrayList<SuperLyricData> data = new ArrayList<>(events.size());
+            for (int i = 0; i < events.size(); i++) {
+                LyricEvent event = events.get(i);
+                kinds[i] = toEventType(event.kind);
+                data.add((SuperLyricData) event.payload);
+            }
+            distributor.onBatch(kinds, data);
+            return;
+        }
+
+        for (LyricEvent event : events) {
+            SuperLyricData data = (SuperLyricData) event.payload;
+            if (event.kind == LyricEvent.Kind.STOP) distributor.onStop(data);
+            else distributor.onSuperLyric(data);
+        }
+    }
+
+    /**
+     * 使用图标句柄分发，新图标会在引用它的歌词之前注册，被淘汰的句柄在批次末尾释放
+     * <p>
+     * 新图标只有在发送成功后才会提交到注册表。发送时会暂时移除歌词中的图标，发送完成后恢复，
+     * 以便连接重建后重新发送完整数据。
+     */
+    private void deliverWithIconHandles(@NonNull ISuperLyricDistributorV2 distributor, @NonNull List<LyricEvent> events) throws RemoteException {
+        int size = events.size();
+        int[] kinds = new int[size * 2];
+        int[] iconHandles = new int[size * 2];
+        ArrayList<SuperLyricData> data = new ArrayList<>(size * 2);
+        String packageName = null;
+
+        String[] strippedIcons = new String[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            LyricEvent event = events.get(i);
+            SuperLyricData payload = (SuperLyricData) event.payload;
+            int handle = IconRegistry.NO_HANDLE;
+            String base64Icon = event.kind == LyricEvent.Kind.LYRIC ? payload.getBase64Icon() : null;
+            if (base64Icon != null && !base64Icon.isEmpty()) {
+                handle = iconRegistry.lookup(base64Icon);
+                if (handle == IconRegistry.NO_HANDLE) {
+                    handle = iconRegistry.stage(base64Icon);
+                    kinds[count] = ISuperLyricDistributorV2.EVENT_ICON;
+                    iconHandles[count] = handle;
+                    data.add(new SuperLyricData()
+                            .setPackageName(payload.getPackageName())
+                            .setBase64Icon(base64Icon)
+                    );
+                    count++;
+                }
+                strippedIcons[i] = base64Icon;
+                payload.setBase64Icon("");
+            }
+
+            kinds[count] = toEventType(event.kind);
+            iconHandles[count] = handle;
+            data.add(payload);
+            packageName = payload.getPackageName();
+            count++;
+        }
+
+        int[] evictions = iconRegistry.pendingEvictions();
+        if (evictions.length > 0) {
+            kinds = Arrays.copyOf(kinds, count + evictions.length);
+            iconHandles = Arrays.copyOf(iconHandles, count + evictions.length);
+            for (int evicted : evictions) {
+                kinds[count] = ISuperLyricDistributorV2.EVENT_ICON_EVICT;
+                iconHandles[count] = evicted;
+                data.add(new SuperLyricData().setPackageName(packageName));
+                count++;
+            }
+        }
+
+        try {
+            distributor.onIconBatch(Arrays.copyOf(kinds, count), data, Arrays.copyOf(iconHandles, count));
+            iconRegistry.commit();
+        } catch (RemoteException | RuntimeException e) {
+            iconRegistry.rollback();
+            throw e;
+        } finally {
+            for (int i = 0; i < size; i++) {
+                if (strippedIcons[i] != null)
+                    ((SuperLyricData) events.get(i).payload).setBase64Icon(strippedIcons[i]);
+            }
+        }
+    }
+
+    private void deliverLegacy(@NonNull LyricEvent event) throws RemoteException {
+        if (legacy == null) return;
+
+        SuperLyricData data = (SuperLyricData) event.payload;
+        if (event.kind == LyricEvent.Kind.STOP) legacy.onStop(data);
+        else legacy.onSuperLyric(data);
+    }
+
+    private static int toEventType(@NonNull LyricEvent.Kind kind) {
+        return switch (kind) {
+            case LYRIC -> ISuperLyricDistributorV2.EVENT_LYRIC;
+            case STOP -> ISuperLyricDistributorV2.EVENT_STOP;
+            case DATA -> ISuperLyricDistributorV2.EVENT_DATA;
+        };
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "DistributorChannel{" +
+                "legacy=" + legacy +
+                ", distributor=" + distributor +
+                ", capabilities=" + capabilities +
+                ", iconRegistrations=" + iconRegistry.getRegistrations() +
+                ", iconReferences=" + iconRegistry.getReferences() +
+                ", iconEvictions=" + iconRegistry.getEvictions() +
+                '}';
+    }
+}
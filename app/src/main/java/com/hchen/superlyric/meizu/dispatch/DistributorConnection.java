@@ -0,0 +1,396 @@
+/*
+ * This file is part of SuperLyric.
+
+ * SuperLyric is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HChenX
+ */
+package com.hchen.superlyric.meizu.dispatch;
+
+import static com.hchen.hooktool.log.XposedLog.logD;
+import static com.hchen.hooktool.log.XposedLog.logI;
+import static com.hchen.hooktool.log.XposedLog.logW;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Bundle;
+import android.os.DeadObjectException;
+import android.os.IBinder;
+import android.os.RemoteException;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.hchen.superlyric.meizu.data.SuperLyricKey;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 歌词分发连接管理
+ * <p>
+ * 监听接收端 Binder 的死亡，断开后通过重试与 {@link Intent#ACTION_BATTERY_CHANGED} 广播重新获取 Binder，
+ * 广播接收器只在断开期间注册，重连成功后立即注销。
+ * 断开期间的事件保存在有界的环形缓冲区中，重连后按顺序补发；若断开期间没有新事件，
+ * 则补发最后一句仍在播放的歌词，使系统界面重启后立即恢复显示。
+ * <p>
+ * Binder 调用不持有内部锁，避免慢速的跨进程调用阻塞死亡回调与重连；重连时先在锁内取出补发事件并标记连接中，
+ * 在锁外注册死亡回调与补发，再回到锁内发布新通道，补发期间新到达的事件会继续进入缓冲区并在发布前一并补发。
+ * <p>
+ * 重连会创建新的 {@link DistributorChannel}，图标句柄随之重置。
+ *
+ * @author 焕晨HChen
+ */
+public final class DistributorConnection {
+    private static final String TAG = "DistributorConnection";
+    private static final int REPLAY_CAPACITY = 8;
+    // 重连重试间隔 (ms)，用尽后等待下一次电量广播
+    private static final long[] RETRY_DELAYS = {50, 100, 200, 500, 1000, 2000, 5000};
+    @NonNull
+    private final Context context;
+    private final Object lock = new Object();
+    private final LyricEvent[] replayRing = new LyricEvent[REPLAY_CAPACITY];
+    private int replayHead = 0;
+    private int replaySize = 0;
+    private DistributorChannel channel;
+    private IBinder.DeathRecipient deathRecipient;
+    private LyricEvent lastLyric;
+    private boolean isStopped = true;
+    private boolean isConnecting = false;
+    private int retryCount = 0;
+    private ScheduledExecutorService scheduler;
+    // 只在重连线程中访问
+    private boolean isReceiverRegistered = false;
+
+    private long connects = 0L;
+    private long disconnects = 0L;
+    private long replayed = 0L;
+    private long overwritten = 0L;
+
+    private final BroadcastReceiver batteryReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            if (isConnected()) return;
+            obtainScheduler().execute(() -> reconnect(intent));
+        }
+    };
+
+    public DistributorConnection(@NonNull Context context) {
+        this.context = context;
+    }
+
+    /**
+     * 使用初次获取的通道建立连接
+     */
+    public void attach(@NonNull DistributorChannel channel) throws RemoteException {
+        IBinder.DeathRecipient recipient = link(channel);
+        synchronized (lock) {
+            this.channel = channel;
+            deathRecipient = recipient;
+            connects++;
+        }
+    }
+
+    public boolean isConnected() {
+        synchronized (lock) {
+            return channel != null;
+        }
+    }
+
+    /**
+     * 按顺序分发一组事件，断开期间的事件进入补发缓冲区
+     *
+     * @return 事件是否已送达，进入补发缓冲区时返回 false
+     */
+    public boolean deliver(@NonNull List<LyricEvent> events) throws RemoteException {
+        while (true) {
+            DistributorChannel channel;
+            synchronized (lock) {
+                channel = this.channel;
+                if (channel == null) {
+                    buffer(events);
+                    return false;
+                }
+            }
+
+            try {
+                channel.deliver(events);
+            } catch (DeadObjectException e) {
+                IBinder.DeathRecipient recipient;
+                boolean isBuffered;
+                synchronized (lock) {
+                    recipient = disconnect(channel);
+                    // 调用期间已重连时改用新通道重发，否则等待重连后补发
+                    isBuffered = this.channel == null;
+                    if (isBuffered) buffer(events);
+                }
+                unlink(channel, recipient);
+                if (isBuffered) return false;
+                continue;
+            }
+
+            synchronized (lock) {
+                remember(events);
+            }
+            return true;
+        }
+    }
+
+    @NonNull
+    public Stats getStats() {
+        synchronized (lock) {
+            return new Stats(channel != null, connects, disconnects, replaySize, replayed, overwritten);
+        }
+    }
+
+    /**
+     * 注册死亡回调，不能持有内部锁调用
+     */
+    @NonNull
+    private IBinder.DeathRecipient link(@NonNull DistributorChannel channel) throws RemoteException {
+        IBinder.DeathRecipient recipient = () -> {
+            IBinder.DeathRecipient linked;
+            synchronized (lock) {
+                linked = disconnect(channel);
+            }
+            unlink(channel, linked);
+        };
+        channel.getBinder().linkToDeath(recipient, 0);
+        return recipient;
+    }
+
+    /**
+     * 注销死亡回调，不能持有内部锁调用
+     */
+    private static void unlink(@NonNull DistributorChannel channel, @Nullable IBinder.DeathRecipient recipient) {
+        if (recipient != null) channel.getBinder().unlinkToDeath(recipient, 0);
+    }
+
+    /**
+     * 断开当前通道，只在持有内部锁时调用
+     *
+     * @return 需要在锁外注销的死亡回调，通道已被替换时返回 null
+     */
+    @Nullable
+    private IBinder.DeathRecipient disconnect(@NonNull DistributorChannel channel) {
+        if (this.channel != channel) return null;
+
+        IBinder.DeathRecipient recipient = deathRecipient;
+        deathRecipient = null;
+        this.channel = null;
+        disconnects++;
+        retryCount = 0;
+        logW(TAG, "Distributor died, reconnecting: " + channel);
+        obtainScheduler().execute(this::registerReceiver);
+        scheduleRetry();
+        return recipient;
+    }
+
+    private void registerReceiver() {
+        if (isReceiverRegistered || isConnected()) return;
+
+        context.registerReceiver(batteryReceiver, new IntentFilter(Intent.ACTION_BATTERY_CHANGED));
+        isReceiverRegistered = true;
+    }
+
+    private void unregisterReceiver() {
+        if (!isReceiverRegistered) return;
+
+        context.unregisterReceiver(batteryReceiver);
+        isReceiverRegistered = false;
+    }
+
+    private void scheduleRetry() {
+        if (retryCount >= RETRY_DELAYS.length) {
+            logW(TAG, "Reconnect retries exhausted, waiting for next battery broadcast");
+            return;
+        }
+        obtainScheduler().schedule(() -> {
+            if (!reconnect(context.registerReceiver(null, new IntentFilter(Intent.ACTION_BATTERY_CHANGED)))) {
+                synchronized (lock) {
+                    if (channel == null) scheduleRetry();
+                }
+            }
+        }, RETRY_DELAYS[retryCount++], TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 尝试从广播中重新获取 Binder 并补发缓冲的事件，只在重连线程中调用
+     */
+    private boolean reconnect(@Nullable Intent intent) {
+        if (intent == null) return false;
+        Bundle bundle = intent.getBundleExtra(SuperLyricKey.SUPER_LYRIC_INFO);
+        if (bundle == null) return false;
+        DistributorChannel newChannel = DistributorChannel.create(bundle);
+        if (newChannel == null) return false;
+
+        if (!connect(newChannel)) return false;
+        unregisterReceiver();
+        return true;
+    }
+
+    /**
+     * 连接新通道并补发缓冲的事件，失败时事件放回缓冲区头部
+     *
+     * @return 已连接时返回 true
+     */
+    private boolean connect(@NonNull DistributorChannel newChannel) {
+        List<LyricEvent> replay;
+        synchronized (lock) {
+            if (channel != null) return true;
+            if (isConnecting) return false;
+
+            isConnecting = true;
+            replay = drainReplay(true);
+        }
+
+        IBinder.DeathRecipient recipient = null;
+        int count = 0;
+        try {
+            // 系统重启后仍在下发旧 Binder 时会在这里失败，等待下一次重试
+            recipient = link(newChannel);
+            while (true) {
+                if (!replay.isEmpty()) {
+                    newChannel.deliver(replay);
+                    count += replay.size();
+                }
+                synchronized (lock) {
+                    remember(replay);
+                    // 补发期间新进入缓冲区的事件需要在发布新通道前补发，保证送达顺序
+                    replay = drainReplay(false);
+                    if (replay.isEmpty()) {
+                        channel = newChannel;
+                        deathRecipient = recipient;
+                        isConnecting = false;
+                        connects++;
+                        replayed += count;
+                        break;
+                    }
+                }
+            }
+        } catch (RemoteException e) {
+            unlink(newChannel, recipient);
+            synchronized (lock) {
+                requeue(replay);
+                isConnecting = false;
+            }
+            logD(TAG, "Distributor not ready yet: " + e);
+            return false;
+        }
+        logI(TAG, "Distributor reconnected, replayed " + count + " event(s): " + newChannel);
+        return true;
+    }
+
+    private void buffer(@NonNull List<LyricEvent> events) {
+        for (LyricEvent event : events) {
+            int index = (replayHead + replaySize) % REPLAY_CAPACITY;
+            if (replaySize == REPLAY_CAPACITY) {
+                replayHead = (replayHead + 1) % REPLAY_CAPACITY;
+                overwritten++;
+            } else {
+                replaySize++;
+            }
+            replayRing[index] = event;
+        }
+    }
+
+    /**
+     * 将补发失败的事件放回缓冲区头部，缓冲区已满时丢弃其中较早的事件
+     */
+    private void requeue(@NonNull List<LyricEvent> events) {
+        for (int i = events.size() - 1; i >= 0; i--) {
+            if (replaySize == REPLAY_CAPACITY) {
+                overwritten += i + 1;
+                return;
+            }
+            replayHead = (replayHead - 1 + REPLAY_CAPACITY) % REPLAY_CAPACITY;
+            replayRing[replayHead] = events.get(i);
+            replaySize++;
+        }
+    }
+
+    /**
+     * 取出所有缓冲的事件
+     *
+     * @param restoreLyric 没有缓冲的事件时是否补发最后一句仍在播放的歌词
+     */
+    @NonNull
+    private List<LyricEvent> drainReplay(boolean restoreLyric) {
+        ArrayList<LyricEvent> events = new ArrayList<>(Math.max(replaySize, 1));
+        for (int i = 0; i < replaySize; i++) {
+            int index = (replayHead + i) % REPLAY_CAPACITY;
+            events.add(replayRing[index]);
+            replayRing[index] = null;
+        }
+        replayHead = 0;
+        replaySize = 0;
+        if (restoreLyric && events.isEmpty() && lastLyric != null && !isStopped) events.add(lastLyric);
+        return events;
+    }
+
+    private void remember(@NonNull List<LyricEvent> events) {
+        for (LyricEvent event : events) {
+            if (event.kind == LyricEvent.Kind.LYRIC) {
+                lastLyric = event;
+                isStopped = false;
+            } else if (event.kind == LyricEvent.Kind.STOP) {
+                isStopped = true;
+            }
+        }
+    }
+
+    @NonNull
+    private synchronized ScheduledExecutorService obtainScheduler() {
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "SuperLyric-Reconnect");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return scheduler;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        synchronized (lock) {
+            return "DistributorConnection{" +
+                    "channel=" + channel +
+                    ", connects=" + connects +
+                    ", disconnects=" + disconnects +
+                    ", pendingReplay=" + replaySize +
+                    '}';
+        }
+    }
+
+    /**
+     * 连接统计快照
+     *
+     * @param isConnected   当前是否已连接
+     * @param connects      成功连接次数 (含首次)
+     * @param disconnects   检测到接收端死亡的次数
+     * @param pendingReplay 等待补发的事件数
+     * @param replayed      重连后补发的事件数
+     * @param overwritten   缓冲区已满被覆盖的事件数
+     */
+    public record Stats(boolean isConnected, long connects, long disconnects, int pendingReplay,
+                        long replayed, long overwritten) {
+    }
+}
@@ -0,0 +1,377 @@
+/*
+ * This file is part of SuperLyric.
+
+ * SuperLyric is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HChenX
+ */
+package com.hchen.superlyric.meizu.helper;
+
+import static com.hchen.hooktool.log.XposedLog.logD;
+import static com.hchen.hooktool.log.XposedLog.logE;
+import static com.hchen.hooktool.log.XposedLog.logW;
+
+import android.content.pm.ApplicationInfo;
+
+import androidx.annotation.NonNull;
+
+import com.hchen.dexkitcache.DexkitCache;
+import com.hchen.dexkitcache.IDexkit;
+import com.hchen.hooktool.HCData;
+import com.hchen.superlyric.meizu.hook.LyricRelease;
+import com.hchen.superlyric.meizu.metrics.Histogram;
+import com.hchen.superlyric.meizu.metrics.Metrics;
+import com.hchen.superlyric.meizu.metrics.StartupTracer;
+
+import org.luckypray.dexkit.DexKitBridge;
+import org.luckypray.dexkit.query.BatchFindClassUsingStrings;
+import org.luckypray.dexkit.query.FindClass;
+import org.luckypray.dexkit.query.FindMethod;
+import org.luckypray.dexkit.query.matchers.ClassMatcher;
+import org.luckypray.dexkit.query.matchers.MethodMatcher;
+import org.luckypray.dexkit.result.ClassDataList;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import de.robv.android.xposed.callbacks.XC_LoadPackage;
+
+/**
+ * DexKit 懒加载与批量查询
+ * <p>
+ * 加载阶段只记录参数，直到第一次查找成员时才初始化 DexkitCache，
+ * 不需要 DexKit 的应用与进程不会为它付出任何开销。
+ * <p>
+ * 只依赖字符串的查询可以通过 {@link #declareClassUsingStrings(String, String...)} 与
+ * {@link #declareMethodUsingStrings(String, String...)} 预先声明。缓存未命中时，所有尚未取用的此类查询
+ * 通过一次 batchFindClassUsingStrings 扫描找到使用这些字符串的类；方法查询随后只在找到的类中继续查找，
+ * 不会再扫描整个 dex。结果随后逐个交给 DexkitCache 按应用版本保存。
+ * 其他查询通过 {@link #declare(String, IDexkit)} 声明，在取用时单独执行。
+ * <p>
+ * 所有解析结果还会写入 {@link HookCache}，热启动时直接从中还原，不会初始化 DexKit。
+ * <p>
+ * 依赖 DexKit 的 Hook 可以通过 {@link #install(String, Runnable)} 安装。所有已声明的查询都命中
+ * {@link HookCache} 时同步安装，保证 Hook 在应用读取相关状态之前生效；缓存未命中时才延迟到后台线程
+ * 解析与安装，期间产生的歌词会被短暂缓存，避免拖慢应用启动。
+ *
+ * @author 焕晨HChen
+ */
+public class DexkitHelper {
+    private static final String TAG = "DexkitHelper";
+    private static final String CACHE_NAME = "superlyric";
+    // 延迟安装期间缓存歌词的最长时长 (ms)
+    private static final long LYRIC_HOLD_TIMEOUT = 2000L;
+    private static final LinkedHashMap<String, IDexkit<?>> declaredMap = new LinkedHashMap<>();
+    // 可批量执行的查询：key -> 使用的字符串
+    private static final LinkedHashMap<String, List<String>> groupMap = new LinkedHashMap<>();
+    // 可批量执行的查询中查找方法的 key
+    private static final HashSet<String> methodKeySet = new HashSet<>();
+    private static final HashSet<String> fetchedSet = new HashSet<>();
+    private static ClassLoader classLoader;
+    private static String sourceDir;
+    private static String dataDir;
+    // 使用 DexKit 期间持有的锁，与保护声明的类锁分开，后台扫描不会阻塞缓存命中与声明
+    private static final Object bridgeLock = new Object();
+    // 以下由 bridgeLock 保护
+    private static final HashMap<String, Object> prefetchedMap = new HashMap<>();
+    private static boolean isInitialized = false;
+    private static boolean isOpened = false;
+    private static volatile boolean isDeferred = true;
+    private static ExecutorService installExecutor;
+    private static final Histogram installBlockedTime = Metrics.histogram("dexkit.install.blocked");
+    private static final Histogram installCostTime = Metrics.histogram("dexkit.install.cost");
+    private static final Histogram findMemberTime = Metrics.histogram("dexkit.find_member");
+
+    /**
+     * 记录 DexKit 初始化参数，只应对目标应用调用
+     */
+    public static synchronized void prepare(@NonNull XC_LoadPackage.LoadPackageParam loadPackageParam) {
+        if (loadPackageParam.appInfo == null) return;
+
+        classLoader = loadPackageParam.classLoader;
+        sourceDir = loadPackageParam.appInfo.sourceDir;
+        dataDir = loadPackageParam.appInfo.dataDir;
+        HookCache.prepare(loadPackageParam.packageName, sourceDir, getVersionCode(loadPackageParam.appInfo));
+    }
+
+    /**
+     * 在加载阶段读取应用版本号，此时还没有 Context 可用于查询 PackageManager
+     */
+    private static long getVersionCode(@NonNull ApplicationInfo appInfo) {
+        try {
+            // longVersionCode 为隐藏字段，由系统解析安装包时填充
+            return ApplicationInfo.class.getField("longVersionCode").getLong(appInfo);
+        } catch (ReflectiveOperationException e) {
+            logW(TAG, "Failed to read version code from application info!!", e);
+            return -1L;
+        }
+    }
+
+    /**
+     * 预先声明查询，取用时单独执行
+     */
+    public static synchronized void declare(@NonNull String key, @NonNull IDexkit<?> iDexkit) {
+        declaredMap.put(key, iDexkit);
+    }
+
+    /**
+     * 预先声明查找使用了全部指定字符串的唯一类，缓存未命中时与其他同类查询一起批量执行
+     */
+    public static synchronized void declareClassUsingStrings(@NonNull String key, @NonNull String... usingStrings) {
+        groupMap.put(key, List.of(usingStrings));
+        methodKeySet.remove(key);
+        declaredMap.put(key, bridge -> bridge.findClass(FindClass.create()
+                .matcher(ClassMatcher.create()
+                        .usingStrings(usingStrings)
+                )
+        ).single());
+    }
+
+    /**
+     * 预先声明查找使用了全部指定字符串的唯一方法，缓存未命中时与其他同类查询一起批量执行
+     */
+    public static synchronized void declareMethodUsingStrings(@NonNull String key, @NonNull String... usingStrings) {
+        groupMap.put(key, List.of(usingStrings));
+        methodKeySet.add(key);
+        declaredMap.put(key, bridge -> bridge.findMethod(FindMethod.create()
+                .matcher(MethodMatcher.create()
+                        .usingStrings(usingStrings)
+                )
+        ).single());
+    }
+
+    /**
+     * 查找已声明的成员
+     */
+    public static <T> T findMember(@NonNull String key) {
+        IDexkit<?> iDexkit;
+        synchronized (DexkitHelper.class) {
+            iDexkit = declaredMap.get(key);
+        }
+        Objects.requireNonNull(iDexkit, "Dexkit query is not declared: " + key);
+        return findMember(key, iDexkit);
+    }
+
+    /**
+     * 查找成员，优先从 HookCache 还原，未命中时才会初始化 DexkitCache
+     * <p>
+     * 只有使用 DexKit 时才持有 bridgeLock，后台线程解析期间其他线程的缓存命中不会被阻塞。
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T findMember(@NonNull String key, @NonNull IDexkit<?> iDexkit) {
+        long start = System.nanoTime();
+        StartupTracer.Span span = StartupTracer.begin("dexkit", "find_member:" + key);
+        try {
+            ClassLoader loader;
+            synchronized (DexkitHelper.class) {
+                fetchedSet.add(key);
+                loader = Objects.requireNonNullElse(HCData.getClassLoader(), classLoader);
+            }
+            Object cached = HookCache.get(key, loader);
+            if (cached != null) return (T) cached;
+
+            T result;
+            synchronized (bridgeLock) {
+                ensureInitialized();
+                result = DexkitCache.findMember(key, (IDexkit<Object>) bridge -> query(bridge, key, iDexkit));
+            }
+            HookCache.put(key, result);
+            return result;
+        } finally {
+            span.close();
+            findMemberTime.recordSince(start);
+            logD(TAG, "Find member: " + key + ", cost: " + (System.nanoTime() - start) / 1000 + "us");
+        }
+    }
+
+    /**
+     * 设置依赖 DexKit 的 Hook 是否延迟到后台线程安装，默认开启
+     */
+    public static void setDeferred(boolean deferred) {
+        isDeferred = deferred;
+    }
+
+    /**
+     * 安装依赖 DexKit 的 Hook
+     * <p>
+     * 延迟模式下，若已声明的查询有任何一个未命中缓存，则在后台线程执行 installer，当前线程立即返回，
+     * 安装完成前歌词会被缓存；否则在当前线程同步执行。
+     *
+     * @param name      用于日志的名称
+     * @param installer 查找成员并安装 Hook 的过程
+     */
+    public static void install(@NonNull String name, @NonNull Runnable installer) {
+        long start = System.nanoTime();
+        if (!isDeferred || isDeclaredCached()) {
+            runInstaller(name, installer);
+            installBlockedTime.recordSince(start);
+            logD(TAG, "Install " + name + " (sync), blocked: " + (System.nanoTime() - start) / 1000 + "us");
+            return;
+        }
+
+        LyricRelease.holdDispatch(LYRIC_HOLD_TIMEOUT);
+        try {
+            obtainInstallExecutor().execute(() -> {
+                try {
+                    long begin = System.nanoTime();
+                    runInstaller(name, installer);
+                    installCostTime.recordSince(begin);
+                    logD(TAG, "Install " + name + " (deferred), cost: " + (System.nanoTime() - begin) / 1000 + "us");
+                } finally {
+                    LyricRelease.releaseDispatch();
+                }
+            });
+        } catch (Throwable e) {
+            LyricRelease.releaseDispatch();
+            throw e;
+        }
+        installBlockedTime.recordSince(start);
+        logD(TAG, "Install " + name + " (deferred), blocked: " + (System.nanoTime() - start) / 1000 + "us");
+    }
+
+    /**
+     * 所有已声明的查询是否都已保存在 HookCache 中，未声明任何查询时返回 false
+     */
+    private static synchronized boolean isDeclaredCached() {
+        if (declaredMap.isEmpty()) return false;
+        for (String key : declaredMap.keySet()) {
+            if (!HookCache.contains(key)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * 关闭 DexKit，未使用过时不做任何事
+     */
+    public static void close() {
+        synchronized (bridgeLock) {
+            if (!isOpened) return;
+
+            DexkitCache.close();
+            prefetchedMap.clear();
+            isOpened = false;
+        }
+    }
+
+    /**
+     * 缓存未命中时执行查询，可批量执行的查询会与其余尚未取用的同类查询在一次扫描中完成
+     */
+    private static Object query(@NonNull DexKitBridge bridge, @NonNull String key, @NonNull IDexkit<?> iDexkit) throws ReflectiveOperationException {
+        if (prefetchedMap.containsKey(key)) return prefetchedMap.remove(key);
+
+        HashMap<String, Collection<String>> groups = pendingGroups(key);
+        if (groups.containsKey(key)) {
+            Map<String, ClassDataList> result = bridge.batchFindClassUsingStrings(BatchFindClassUsingStrings.create()
+                    .groups(groups)
+            );
+            prefetch(bridge, result, groups);
+            if (prefetchedMap.containsKey(key)) return prefetchedMap.remove(key);
+        }
+
+        // 结果不唯一或不是可批量执行的查询时单独执行，失败时按原有方式抛出异常
+        return iDexkit.dexkit(bridge);
+    }
+
+    /**
+     * 当前查询与其余尚未取用的可批量执行的查询
+     */
+    @NonNull
+    private static synchronized HashMap<String, Collection<String>> pendingGroups(@NonNull String key) {
+        HashMap<String, Collection<String>> groups = new HashMap<>();
+        for (Map.Entry<String, List<String>> entry : groupMap.entrySet()) {
+            if (entry.getKey().equals(key) || !fetchedSet.contains(entry.getKey()))
+                groups.put(entry.getKey(), entry.getValue());
+        }
+        return groups;
+    }
+
+    /**
+     * 保存批量查询中结果唯一的成员
+     * <p>
+     * 使用了指定字符串的方法一定位于使用了这些字符串的类中，因此方法查询只需在批量找到的类中继续查找。
+     */
+    private static void prefetch(@NonNull DexKitBridge bridge, @NonNull Map<String, ClassDataList> result,
+                                 @NonNull Map<String, Collection<String>> groups) {
+        for (Map.Entry<String, ClassDataList> entry : result.entrySet()) {
+            String key = entry.getKey();
+            List<?> members = entry.getValue();
+            if (isMethodKey(key) && !members.isEmpty()) {
+                members = bridge.findMethod(FindMethod.create()
+                        .searchInClass(entry.getValue())
+                        .matcher(MethodMatcher.create()
+                                .usingStrings(groups.get(key).toArray(new String[0]))
+                        )
+                );
+            }
+
+            if (members.size() == 1) prefetchedMap.put(key, members.get(0));
+            else logW(TAG, "Batch query " + key + " matched " + members.size() + " result(s)");
+        }
+        logD(TAG, "Batch query: " + result.keySet());
+    }
+
+    private static synchronized boolean isMethodKey(@NonNull String key) {
+        return methodKeySet.contains(key);
+    }
+
+    private static void runInstaller(@NonNull String name, @NonNull Runnable installer) {
+        StartupTracer.Span span = StartupTracer.begin("dexkit", "install:" + name);
+        try {
+            installer.run();
+        } catch (Throwable e) {
+            logE(TAG, "Failed to install: " + name, e);
+        } finally {
+            span.close();
+            close();
+        }
+    }
+
+    @NonNull
+    private static synchronized ExecutorService obtainInstallExecutor() {
+        if (installExecutor == null) {
+            installExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "SuperLyric-Dexkit");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return installExecutor;
+    }
+
+    // 只在持有 bridgeLock 时调用
+    private static void ensureInitialized() {
+        if (sourceDir == null)
+            throw new IllegalStateException("DexkitHelper is not prepared for this package!!");
+
+        if (!isInitialized) {
+            long start = System.nanoTime();
+            StartupTracer.Span span = StartupTracer.begin("dexkit", "init");
+            try {
+                DexkitCache.init(CACHE_NAME, classLoader, sourceDir, dataDir);
+            } finally {
+                span.close();
+            }
+            isInitialized = true;
+            logD(TAG, "Init dexkit cache, cost: " + (System.nanoTime() - start) / 1000 + "us");
+        }
+        isOpened = true;
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * This file is part of SuperLyric.
+
+ * SuperLyric is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HChenX
+ */
+package com.hchen.superlyric.meizu.helper;
+
+import static com.hchen.hooktool.log.XposedLog.logD;
+import static com.hchen.hooktool.log.XposedLog.logW;
+
+import android.app.AndroidAppHelper;
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.gson.Gson;
+import com.tencent.mmkv.MMKV;
+
+import java.io.File;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+/**
+ * 模块自有的持久化 Hook 解析缓存
+ * <p>
+ * 以 (包名, versionCode, APK 大小与修改时间, 热更新版本) 作为指纹保存 DexKit 解析出的成员，
+ * 指纹变化时整体失效。每条记录附带校验值，损坏或无法还原的记录会被丢弃并重新解析。
+ * 命中时直接按类名与方法签名还原成员，不需要初始化 DexKit。
+ *
+ * @author 焕晨HChen
+ */
+public class HookCache {
+    private static final String TAG = "HookCache";
+    private static final String MMKV_ID = "superlyric_hook_cache";
+    private static final String KEY_FINGERPRINT = "fingerprint";
+    private static final String CHECKSUM_SUFFIX = "$crc";
+    private static final Gson gson = new Gson();
+    private static final HashMap<String, Class<?>> primitiveMap = new HashMap<>();
+    private static MMKV mmkv;
+    private static String packageName;
+    private static String sourceDir;
+    private static long versionCode = -1L;
+    private static String hotfixVersion = "";
+    private static boolean isVerified = false;
+
+    static {
+        for (Class<?> clazz : new Class<?>[]{boolean.class, byte.class, char.class, short.class,
+                int.class, long.class, float.class, double.class, void.class}) {
+            primitiveMap.put(clazz.getName(), clazz);
+        }
+    }
+
+    /**
+     * 记录计算指纹所需的应用信息
+     *
+     * @param versionCode 应用版本号，无法获取时传入 -1，此时仅依靠 APK 大小与修改时间区分版本
+     */
+    public static synchronized void prepare(@NonNull String packageName, @NonNull String sourceDir, long versionCode) {
+        HookCache.packageName = packageName;
+        HookCache.sourceDir = sourceDir;
+        HookCache.versionCode = versionCode;
+    }
+
+    /**
+     * 热更新生效后调用，缓存会在下次读取时失效
+     *
+     * @param version 热更新版本，未知时可传入任意非空标识
+     */
+    public static synchronized void onHotfixApplied(@NonNull String version) {
+        if (Objects.equals(hotfixVersion, version)) return;
+
+        hotfixVersion = version;
+        isVerified = false;
+        logD(TAG, "Hotfix applied: " + version + ", hook cache will be revalidated");
+    }
+
+    /**
+     * 读取缓存的成员
+     *
+     * @return 未命中或记录无效时返回 null
+     */
+    @Nullable
+    public static synchronized Object get(@NonNull String key, @NonNull ClassLoader classLoader) {
+        MMKV mmkv = obtain();
+        if (mmkv == null) return null;
+
+        String json = mmkv.decodeString(key);
+        if (json == null) return null;
+
+        try {
+            if (mmkv.decodeLong(key + CHECKSUM_SUFFIX) != checksum(json))
+                throw new IllegalStateException("Checksum mismatch");
+
+            return restore(gson.fromJson(json, CacheEntry.class), classLoader);
+        } catch (Throwable e) {
+            logW(TAG, "Drop invalid cache entry: " + key, e);
+            mmkv.removeValueForKey(key);
+            mmkv.removeValueForKey(key + CHECKSUM_SUFFIX);
+            return null;
+        }
+    }
+
+    /**
+     * 是否保存有指定成员，不会还原成员
+     */
+    public static synchronized boolean contains(@NonNull String key) {
+        MMKV mmkv = obtain();
+        return mmkv != null && mmkv.containsKey(key);
+    }
+
+    /**
+     * 保存解析出的成员，支持 Class、Method、Constructor、Field 及其数组
+     */
+    public static synchronized void put(@NonNull String key, @Nullable Object result) {
+        if (result == null) return;
+
+        MMKV mmkv = obtain();
+        if (mmkv == null) return;
+
+        CacheEntry entry = new CacheEntry();
+        entry.isArray = result.getClass().isArray();
+        entry.componentType = entry.isArray ? result.getClass().getComponentType().getName() : null;
+        entry.members = new ArrayList<>();
+        if (entry.isArray) {
+            for (int i = 0; i < Array.getLength(result); i++) {
+                MemberData data = toMemberData(Array.get(result, i));
+                if (data == null) return;
+                entry.members.add(data);
+            }
+        } else {
+            MemberData data = toMemberData(result);
+            if (data == null) return;
+            entry.members.add(data);
+        }
+
+        String json = gson.toJson(entry);
+        mmkv.encode(key, json);
+        mmkv.encode(key + CHECKSUM_SUFFIX, checksum(json));
+    }
+
+    @Nullable
+    private static MMKV obtain() {
+        if (sourceDir == null) return null;
+        if (mmkv == null) {
+            Context context = AndroidAppHelper.currentApplication();
+            if (context == null) return null;
+
+            try {
+                MMKV.initialize(context, new File(context.getFilesDir(), "superlyric").getAbsolutePath());
+                mmkv = MMKV.mmkvWithID(MMKV_ID, MMKV.MULTI_PROCESS_MODE);
+            } catch (Throwable e) {
+                logW(TAG, "Failed to init hook cache!!", e);
+                sourceDir = null;
+                return null;
+            }
+        }
+
+        if (!isVerified) {
+            String fingerprint = fingerprint();
+            if (!Objects.equals(fingerprint, mmkv.decodeString(KEY_FINGERPRINT))) {
+                mmkv.clearAll();
+                mmkv.encode(KEY_FINGERPRINT, fingerprint);
+                logD(TAG, "Hook cache invalidated, fingerprint: " + fingerprint);
+            }
+            isVerified = true;
+        }
+        return mmkv;
+    }
+
+    @NonNull
+    private static String fingerprint() {
+        File apk = new File(sourceDir);
+        return packageName + ":" + versionCode + ":" + apk.length() + ":" + apk.lastModified() + ":" + hotfixVersion;
+    }
+
+    private static long checksum(@NonNull String json) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(json.getBytes(StandardCharsets.UTF_8));
+        return crc32.getValue();
+    }
+
+    @Nullable
+    private static MemberData toMemberData(@Nullable Object object) {
+        MemberData data = new MemberData();
+        if (object instanceof Class<?> clazz) {
+            data.type = MemberData.TYPE_CLASS;
+            data.className = clazz.getName();
+            return data;
+        } else if (object instanceof Method method) {
+            data.type = MemberData.TYPE_METHOD;
+            data.name = method.getName();
+            data.paramTypes = toNames(method.getParameterTypes());
+        } else if (object instanceof Constructor<?> constructor) {
+            data.type = MemberData.TYPE_CONSTRUCTOR;
+            data.paramTypes = toNames(constructor.getParameterTypes());
+        } else if (object instanceof Field field) {
+            data.type = MemberData.TYPE_FIELD;
+            data.name = field.getName();
+        } else {
+            return null;
+        }
+        data.className = ((Member) object).getDeclaringClass().getName();
+        return data;
+    }
+
+    @NonNull
+    private static Object restore(@NonNull CacheEntry entry, @NonNull ClassLoader classLoader) throws ReflectiveOperationException {
+        if (!entry.isArray) return toMember(entry.members.get(0), classLoader);
+
+        Object array = Array.newInstance(findClass(entry.componentType, classLoader), entry.members.size());
+        for (int i = 0; i < entry.members.size(); i++) {
+            Array.set(array, i, toMember(entry.members.get(i), classLoader));
+        }
+        return array;
+    }
+
+    @NonNull
+    private static Object toMember(@NonNull MemberData data, @NonNull ClassLoader classLoader) throws ReflectiveOperationException {
+        Class<?> clazz = findClass(data.className, classLoader);
+        return switch (data.type) {
+            case MemberData.TYPE_CLASS -> clazz;
+            case MemberData.TYPE_METHOD -> clazz.getDeclaredMethod(data.name, findClasses(data.paramTypes, classLoader));
+            case MemberData.TYPE_CONSTRUCTOR -> clazz.getDeclaredConstructor(findClasses(data.paramTypes, classLoader));
+            case MemberData.TYPE_FIELD -> clazz.getDeclaredField(data.name);
+            default -> throw new ReflectiveOperationException("Unknown member type: " + data.type);
+        };
+    }
+
+    @NonNull
+    private static Class<?> findClass(@NonNull String name, @NonNull ClassLoader classLoader) throws ClassNotFoundException {
+        Class<?> clazz = primitiveMap.get(name);
+        if (clazz != null) return clazz;
+        return Class.forName(name, false, classLoader);
+    }
+
+    @NonNull
+    private static Class<?>[] findClasses(@NonNull List<String> names, @NonNull ClassLoader classLoader) throws ClassNotFoundException {
+        Class<?>[] classes = new Class<?>[names.size()];
+        for (int i = 0; i < names.size(); i++) {
+            classes[i] = findClass(names.get(i), classLoader);
+        }
+        return classes;
+    }
+
+    @NonNull
+    private static List<String> toNames(@NonNull Class<?>[] classes) {
+        ArrayList<String> names = new ArrayList<>(classes.length);
+        for (Class<?> clazz : classes) {
+            names.add(clazz.getName());
+        }
+        return names;
+    }
+
+    private static class CacheEntry {
+        boolean isArray;
+        String componentType;
+        List<MemberData> members;
+    }
+
+    private static class MemberData {
+        static final int TYPE_CLASS = 0;
+        static final int TYPE_METHOD = 1;
+        static final int TYPE_CONSTRUCTOR = 2;
+        static final int TYPE_FIELD = 3;
+
+        int type;
+        String className;
+        String name;
+        List<String> paramTypes;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * This file is part of SuperLyric.
+
+ * SuperLyric is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HChenX
+ */
+package com.hchen.superlyric.meizu.helper;
+
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.hchen.hooktool.log.XposedLog;
+import com.hchen.superlyric.meizu.BuildConfig;
+import com.hchen.superlyricapi.SuperLyricData;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 热路径日志工具
+ * <p>
+ * 调试日志只在 {@link BuildConfig#DEBUG} 时才会构造消息；图标等大字段只输出长度与摘要；
+ * 可按调用点限制输出频率，被跳过的条数会附加在下一条输出中。
+ *
+ * @author 焕晨HChen
+ */
+public class LogHelper {
+    // 歌词等文本字段的最大输出长度
+    private static final int MAX_TEXT_LENGTH = 64;
+    private static final ConcurrentHashMap<String, RateLimit> rateLimitMap = new ConcurrentHashMap<>();
+
+    public static boolean isDebug() {
+        return BuildConfig.DEBUG;
+    }
+
+    /**
+     * 输出调试日志，关闭时不会调用 message
+     */
+    public static void logD(@NonNull String tag, @NonNull Supplier<String> message) {
+        if (!isDebug()) return;
+        XposedLog.logD(tag, message.get());
+    }
+
+    /**
+     * 按调用点限频输出调试日志
+     *
+     * @param site           调用点标识
+     * @param intervalMillis 同一调用点两次输出的最小间隔 (ms)
+     */
+    public static void logD(@NonNull String tag, @NonNull String site, long intervalMillis, @NonNull Supplier<String> message) {
+        if (!isDebug()) return;
+        long skipped = acquire(site, intervalMillis);
+        if (skipped < 0) return;
+        XposedLog.logD(tag, withSkipped(message.get(), skipped));
+    }
+
+    /**
+     * 按调用点限频输出错误日志
+     *
+     * @param site           调用点标识
+     * @param intervalMillis 同一调用点两次输出的最小间隔 (ms)
+     */
+    public static void logE(@NonNull String tag, @NonNull String site, long intervalMillis, @NonNull Supplier<String> message, @Nullable Throwable e) {
+        long skipped = acquire(site, intervalMillis);
+        if (skipped < 0) return;
+        XposedLog.logE(tag, withSkipped(message.get(), skipped), e);
+    }
+
+    /**
+     * 图标摘要，只包含长度与哈希
+     */
+    @NonNull
+    public static String summarizeIcon(@Nullable String base64Icon) {
+        if (base64Icon == null || base64Icon.isEmpty()) return "none";
+        return "<" + base64Icon.length() + " chars #" + Integer.toHexString(base64Icon.hashCode()) + ">";
+    }
+
+    /**
+     * 过长的文本截断输出
+     */
+    @NonNull
+    public static String truncate(@Nullable String text) {
+        if (text == null) return "null";
+        if (text.length() <= MAX_TEXT_LENGTH) return text;
+        return text.substring(0, MAX_TEXT_LENGTH) + "...(" + text.length() + ")";
+    }
+
+    /**
+     * 歌词数据摘要，不会输出完整图标
+     */
+    @NonNull
+    public static String describe(@NonNull SuperLyricData data) {
+        return "package: " + data.getPackageName() +
+                ", lyric: " + truncate(data.getLyric()) +
+                ", delay: " + data.getDelay() +
+                ", base64Icon: " + summarizeIcon(data.getBase64Icon());
+    }
+
+    /**
+     * @return 允许输出时返回上次输出后被跳过的条数，否则返回 -1
+     */
+    private static long acquire(@NonNull String site, long intervalMillis) {
+        if (intervalMillis <= 0) return 0;
+
+        RateLimit rateLimit = rateLimitMap.computeIfAbsent(site, s -> new RateLimit());
+        long now = SystemClock.elapsedRealtime();
+        long last = rateLimit.lastTime.get();
+        if (last != 0 && now - last < intervalMillis || !rateLimit.lastTime.compareAndSet(last, now)) {
+            rateLimit.skipped.incrementAndGet();
+            return -1;
+        }
+        return rateLimit.skipped.getAndSet(0);
+    }
+
+    @NonNull
+    private static String withSkipped(@NonNull String message, long skipped) {
+        return skipped == 0 ? message : message + " (skipped " + skipped + " similar)";
+    }
+
+    private static class RateLimit {
+        final AtomicLong lastTime = new AtomicLong();
+        final AtomicLong skipped = new AtomicLong();
+    }
+}
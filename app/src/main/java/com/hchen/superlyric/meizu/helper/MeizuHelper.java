@@ -30,10 +30,15 @@ import android.app.Notification;
 import android.app.Service;
 import android.content.Context;
 import android.graphics.drawable.Icon;
-import android.text.TextUtils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.hchen.hooktool.HCData;
 import com.hchen.hooktool.hook.IHook;
+import com.hchen.superlyric.meizu.hook.LyricRelease;
+import com.hchen.superlyric.meizu.metrics.Histogram;
+import com.hchen.superlyric.meizu.metrics.Metrics;
 
 /**
  * 模拟魅族设备
@@ -44,6 +49,41 @@ import com.hchen.hooktool.hook.IHook;
  */
 public class MeizuHelper {
     private static final String TAG = "MeizuHelper";
+    // 图标编码缓存上限 (byte)
+    private static final long ICON_CACHE_MAX_BYTES = 256 * 1024;
+    private static final IconCache iconCache = new IconCache(ICON_CACHE_MAX_BYTES);
+    // Class.forName 负缓存上限
+    private static final int CLASS_RESOLVER_MAX_MISSES = 512;
+    private static final ClassResolver classResolver = new ClassResolver(CLASS_RESOLVER_MAX_MISSES);
+    private static final NotificationFilter notificationFilter = new NotificationFilter(16);
+    private static final NotificationDedupe notificationDedupe = new NotificationDedupe();
+    private static volatile TickerPhrases tickerPhrases;
+    private static final Histogram notificationHookTime = Metrics.histogram("hook.notification");
+    // 常驻的路由接收方，通知通过参数传入，被过滤的通知不会产生任何分配
+    private static final TickerRouter.Target<Notification> notificationTarget = new TickerRouter.Target<>() {
+        @Override
+        public void onLyric(@NonNull String lyric, Notification notification) {
+            Context context = AndroidAppHelper.currentApplication();
+            String base64Icon = context != null ? getBase64Icon(context, notification) : null;
+
+            if (base64Icon != null)
+                sendLyric(lyric, base64Icon);
+            else sendLyric(lyric);
+        }
+
+        @Override
+        public void onStop(Notification notification) {
+            sendStop();
+        }
+    };
+
+    static {
+        classResolver.addRedirect("android.app.Notification", MeiZuNotification.class);
+        Metrics.gauge("class_resolver", classResolver::getStats);
+        Metrics.gauge("icon_cache", iconCache::getStats);
+        Metrics.gauge("notification.filter", notificationFilter::getStats);
+        Metrics.gauge("notification.dedupe", notificationDedupe::getStats);
+    }
 
     /**
      * 浅层模拟魅族设备
@@ -70,19 +110,31 @@ public class MeizuHelper {
                 new IHook() {
                     @Override
                     public void before() {
-                        try {
-                            if (TextUtils.equals("android.app.Notification", (String) getArg(0))) {
-                                setResult(MeiZuNotification.class);
-                                return;
-                            }
-                            setResult(HCData.getClassLoader().loadClass((String) getArg(0)));
-                        } catch (Throwable ignore) {
-                        }
+                        String className = (String) getArg(0);
+                        if (className == null) return;
+
+                        Class<?> clazz = classResolver.resolve(className, HCData.getClassLoader());
+                        if (clazz != null) setResult(clazz);
                     }
                 }
         );
     }
 
+    /**
+     * 在深度模拟中将指定类名重定向到目标类
+     */
+    public static void addClassRedirect(@NonNull String className, @NonNull Class<?> target) {
+        classResolver.addRedirect(className, target);
+    }
+
+    /**
+     * Class.forName 解析统计
+     */
+    @NonNull
+    public static ClassResolver.Stats getClassResolverStats() {
+        return classResolver.getStats();
+    }
+
     public static void hookNotificationLyric() {
         if (existsClass("androidx.media3.common.util.Util")) {
             hookMethod("androidx.media3.common.util.Util",
@@ -107,47 +159,107 @@ public class MeizuHelper {
         }
     }
 
+    /**
+     * 通知过滤统计
+     */
+    @NonNull
+    public static NotificationFilter.Stats getNotificationFilterStats() {
+        return notificationFilter.getStats();
+    }
+
+    /**
+     * 通知去重统计
+     */
+    @NonNull
+    public static NotificationDedupe.Stats getNotificationDedupeStats() {
+        return notificationDedupe.getStats();
+    }
+
+    /**
+     * 图标缓存统计
+     */
+    @NonNull
+    public static IconCache.Stats getIconCacheStats() {
+        return iconCache.getStats();
+    }
+
+    /**
+     * 获取通知小图标的 base64 编码，同一个资源图标只会编码一次
+     */
+    @Nullable
+    private static String getBase64Icon(@NonNull Context context, @NonNull Notification notification) {
+        int iconId = notification.extras.getInt("ticker_icon", 0);
+        if (iconId != 0) {
+            return iconCache.get(IconCache.Key.ofResource(context.getPackageName(), iconId),
+                    () -> drawableToBase64(context.getDrawable(iconId)));
+        }
+
+        int smallIconId = notification.icon;
+        if (smallIconId != 0) {
+            return iconCache.get(IconCache.Key.ofResource(context.getPackageName(), smallIconId),
+                    () -> drawableToBase64(Icon.createWithResource(context, smallIconId).loadDrawable(context)));
+        }
+
+        Icon smallIcon = notification.getSmallIcon();
+        if (smallIcon == null) return null;
+        if (smallIcon.getType() == Icon.TYPE_RESOURCE) {
+            return iconCache.get(IconCache.Key.ofResource(smallIcon.getResPackage(), smallIcon.getResId()),
+                    () -> drawableToBase64(smallIcon.loadDrawable(context)));
+        }
+
+        // 非资源图标每次都是新的对象，无法按身份命中缓存，直接编码
+        return drawableToBase64(smallIcon.loadDrawable(context));
+    }
+
     private static IHook createNotificationHook() {
         return new IHook() {
             @Override
             public void before() {
                 Notification notification = (Notification) getArg(2);
                 if (notification == null) return;
+                if (!notificationDedupe.enter(notification)) return;
 
-                boolean isLyric = ((notification.flags & MeiZuNotification.FLAG_ALWAYS_SHOW_TICKER) != 0 ||
-                        (notification.flags & MeiZuNotification.FLAG_ONLY_UPDATE_TICKER) != 0);
-                if (isLyric) {
-                    if (notification.tickerText != null) {
-                        if (notification.tickerText.toString().trim().isEmpty()) {
-                            return;
-                        } else if (notification.tickerText.toString().trim().contains("纯音乐") ||
-                                notification.tickerText.toString().trim().contains("无歌词") ||
-                                notification.tickerText.toString().trim().contains("歌曲已暂停，即将隐藏歌词")) {
-                            sendStop();
-                        }
-                        Context context = AndroidAppHelper.currentApplication();
-
-                        String base64Icon = null;
-                        int iconId = notification.extras.getInt("ticker_icon", 0);
-                        Icon smallIcon = notification.getSmallIcon();
-                        int smallIconId = notification.icon;
-                        if (iconId != 0) base64Icon = drawableToBase64(context.getDrawable(iconId));
-                        else if (smallIconId != 0)
-                            base64Icon = drawableToBase64(Icon.createWithResource(context, smallIconId).loadDrawable(context));
-                        else if (smallIcon != null)
-                            base64Icon = drawableToBase64(smallIcon.loadDrawable(context));
-
-                        if (base64Icon != null)
-                            sendLyric(notification.tickerText.toString(), base64Icon);
-                        else sendLyric(notification.tickerText.toString());
-                    } else {
-                        sendStop();
-                    }
-                } else {
-                    if ("网易云音乐正在播放".equals(notification.tickerText.toString()))
-                        sendStop();
+                long start = System.nanoTime();
+                try {
+                    handleNotification(getArg(0) instanceof String tag ? tag : null, (int) getArg(1), notification);
+                } finally {
+                    long cost = System.nanoTime() - start;
+                    notificationFilter.recordCost(cost);
+                    notificationHookTime.record(cost);
                 }
             }
+
+            @Override
+            public void after() {
+                if (getArg(2) != null) notificationDedupe.exit();
+            }
         };
     }
+
+    /**
+     * 按当前应用包名获取短语表，只解析一次
+     *
+     * @return 应用尚未完成初始化时返回 null
+     */
+    @Nullable
+    private static TickerPhrases getTickerPhrases() {
+        TickerPhrases phrases = tickerPhrases;
+        if (phrases == null) {
+            String packageName = LyricRelease.packageName;
+            if (packageName == null) return null;
+
+            phrases = TickerPhrases.forPackage(packageName);
+            tickerPhrases = phrases;
+        }
+        return phrases;
+    }
+
+    private static void handleNotification(@Nullable String tag, int id, @NonNull Notification notification) {
+        // 应用初始化完成前无法发送歌词
+        TickerPhrases phrases = getTickerPhrases();
+        if (phrases == null) return;
+
+        TickerRouter.route(notificationFilter, phrases, tag, id, notification.flags, notification.tickerText,
+                notification, notificationTarget);
+    }
 }
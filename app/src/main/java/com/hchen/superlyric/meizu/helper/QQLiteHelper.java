@@ -24,8 +24,8 @@ import static com.hchen.hooktool.core.CoreTool.returnResult;
 import static com.hchen.superlyric.meizu.hook.LyricRelease.sendLyric;
 
 import com.hchen.hooktool.hook.IHook;
-
-import java.util.Objects;
+import com.hchen.superlyric.meizu.metrics.Histogram;
+import com.hchen.superlyric.meizu.metrics.Metrics;
 
 /**
  * 通过 QQLite 获取歌词
@@ -33,6 +33,8 @@ import java.util.Objects;
  * @author 焕晨HChen
  */
 public class QQLiteHelper {
+    private static final Histogram metaDataHookTime = Metrics.histogram("hook.qqlite_metadata");
+
     /**
      * 是否支持 QQLite
      */
@@ -54,11 +56,12 @@ public class QQLiteHelper {
                 new IHook() {
                     @Override
                     public void before() {
-                        String lyric = (String) getArg(1);
-                        if (lyric == null || lyric.isEmpty()) return;
-                        if (Objects.equals(lyric, "NEED_NOT_UPDATE_TITLE")) return;
+                        String lyric = MetadataLyric.fromQQLite((String) getArg(1));
+                        if (lyric == null) return;
 
+                        long start = System.nanoTime();
                         sendLyric(lyric);
+                        metaDataHookTime.recordSince(start);
                     }
                 }
         );
@@ -28,7 +28,6 @@ import android.text.TextUtils;
 
 import androidx.annotation.NonNull;
 
-import com.hchen.dexkitcache.DexkitCache;
 import com.hchen.dexkitcache.IDexkit;
 import com.hchen.hooktool.hook.IHook;
 
@@ -50,7 +49,7 @@ public class ScreenHelper {
 
     public static void screenOffNotStopLyric(@NonNull String... excludes) {
         try {
-            Method[] methods = DexkitCache.findMember("screen_helper", new IDexkit<MethodDataList>() {
+            Method[] methods = DexkitHelper.findMember("screen_helper", new IDexkit<MethodDataList>() {
                 @NonNull
                 @Override
                 public MethodDataList dexkit(@NonNull DexKitBridge bridge) throws ReflectiveOperationException {
@@ -18,42 +18,132 @@
  */
 package com.hchen.superlyric.meizu.helper;
 
+import static com.hchen.hooktool.log.XposedLog.logW;
 import static com.hchen.superlyric.meizu.hook.LyricRelease.audioManager;
-import static com.hchen.superlyric.meizu.hook.LyricRelease.sendStop;
+import static com.hchen.superlyric.meizu.hook.LyricRelease.sendPause;
 
-import java.util.Timer;
-import java.util.TimerTask;
+import android.media.AudioManager;
+import android.media.AudioPlaybackConfiguration;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+
+import com.hchen.superlyric.meizu.metrics.Metrics;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 超时暂停歌词
+ * <p>
+ * 通过音频播放配置变化的回调检测播放停止，不再常驻轮询线程。回调只用于唤醒：
+ * 回调触发时 {@link AudioManager#isMusicActive()} 可能尚未更新，因此稍后再检查一次；
+ * 回调不可用时才退回到主线程上的轮询，并在播放持续时逐步拉长轮询间隔。
  *
  * @author 焕晨HChen
  */
 public class TimeoutHelper {
-    private static Timer timer = new Timer();
-    private static boolean isRunning = false;
+    private static final String TAG = "TimeoutHelper";
+    private static final long MIN_POLL_INTERVAL = 1000L;
+    private static final long MAX_POLL_INTERVAL = 8000L;
+    // 回调触发后等待播放状态更新的时长 (ms)
+    private static final long CALLBACK_CHECK_DELAY = 500L;
+    private static final Handler handler = new Handler(Looper.getMainLooper());
+    private static volatile boolean isRunning = false;
+    private static boolean isCallbackRegistered = false;
+    private static long pollInterval = MIN_POLL_INTERVAL;
+    private static final LongAdder callbackWakeups = new LongAdder();
+    private static final LongAdder pollWakeups = new LongAdder();
+
+    private static final Runnable checkRunnable = TimeoutHelper::checkStopped;
+
+    private static final AudioManager.AudioPlaybackCallback playbackCallback = new AudioManager.AudioPlaybackCallback() {
+        @Override
+        public void onPlaybackConfigChanged(List<AudioPlaybackConfiguration> configs) {
+            callbackWakeups.increment();
+            // 连续的回调只保留最后一次检查
+            handler.removeCallbacks(checkRunnable);
+            handler.postDelayed(checkRunnable, CALLBACK_CHECK_DELAY);
+        }
+    };
+
+    private static final Runnable pollRunnable = new Runnable() {
+        @Override
+        public void run() {
+            pollWakeups.increment();
+            if (checkStopped()) return;
+
+            pollInterval = Math.min(pollInterval * 2, MAX_POLL_INTERVAL);
+            handler.postDelayed(this, pollInterval);
+        }
+    };
+
+    static {
+        Metrics.gauge("timeout_helper", TimeoutHelper::getStats);
+    }
 
     public static void start() {
         if (isRunning) return;
 
-        timer = new Timer();
-        timer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                if (audioManager != null && !audioManager.isMusicActive()) {
-                    sendStop();
-                    stop();
-                }
-            }
-        }, 0, 1000);
+        handler.post(TimeoutHelper::startInternal);
+    }
+
+    /**
+     * 唤醒统计，用于对比原先每秒一次的轮询
+     */
+    @NonNull
+    public static Stats getStats() {
+        return new Stats(isCallbackRegistered, callbackWakeups.sum(), pollWakeups.sum());
+    }
+
+    private static void startInternal() {
+        if (isRunning || audioManager == null) return;
         isRunning = true;
+
+        if (checkStopped()) return;
+
+        try {
+            audioManager.registerAudioPlaybackCallback(playbackCallback, handler);
+            isCallbackRegistered = true;
+        } catch (Throwable e) {
+            logW(TAG, "Failed to register playback callback, fallback to polling!!", e);
+            pollInterval = MIN_POLL_INTERVAL;
+            handler.postDelayed(pollRunnable, pollInterval);
+        }
+    }
+
+    /**
+     * 检查播放是否已经停止，停止时发送暂停并结束检测
+     */
+    private static boolean checkStopped() {
+        if (!isRunning) return true;
+        if (audioManager == null || audioManager.isMusicActive()) return false;
+
+        sendPause();
+        stop();
+        return true;
     }
 
     private static void stop() {
-        if (timer == null || !isRunning) return;
+        if (!isRunning) return;
 
-        timer.cancel();
-        timer = null;
+        if (isCallbackRegistered) {
+            audioManager.unregisterAudioPlaybackCallback(playbackCallback);
+            isCallbackRegistered = false;
+        }
+        handler.removeCallbacks(checkRunnable);
+        handler.removeCallbacks(pollRunnable);
         isRunning = false;
     }
+
+    /**
+     * 超时检测统计快照
+     *
+     * @param isCallbackMode  是否使用回调检测
+     * @param callbackWakeups 回调触发的检查次数
+     * @param pollWakeups     轮询触发的检查次数
+     */
+    public record Stats(boolean isCallbackMode, long callbackWakeups, long pollWakeups) {
+    }
 }
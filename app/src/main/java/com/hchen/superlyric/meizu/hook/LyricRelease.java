@@ -27,7 +27,6 @@ import android.content.pm.PackageManager;
 import android.media.AudioManager;
 import android.os.Bundle;
 import android.os.RemoteException;
-import android.text.TextUtils;
 
 import androidx.annotation.CallSuper;
 import androidx.annotation.NonNull;
@@ -36,10 +35,23 @@ import com.hchen.hooktool.HCBase;
 import com.hchen.hooktool.HCData;
 import com.hchen.hooktool.hook.IHook;
 import com.hchen.superlyric.meizu.data.SuperLyricKey;
-import com.hchen.superlyricapi.ISuperLyricDistributor;
+import com.hchen.superlyric.meizu.dispatch.DistributorChannel;
+import com.hchen.superlyric.meizu.dispatch.DistributorConnection;
+import com.hchen.superlyric.meizu.dispatch.LyricDispatcher;
+import com.hchen.superlyric.meizu.dispatch.LyricEvent;
+import com.hchen.superlyric.meizu.dispatch.LyricPublisher;
+import com.hchen.superlyric.meizu.dispatch.LyricSession;
+import com.hchen.superlyric.meizu.helper.HookCache;
+import com.hchen.superlyric.meizu.helper.LogHelper;
+import com.hchen.superlyric.meizu.helper.MetadataLyric;
+import com.hchen.superlyric.meizu.metrics.Histogram;
+import com.hchen.superlyric.meizu.metrics.Metrics;
+import com.hchen.superlyric.meizu.metrics.StartupTracer;
 import com.hchen.superlyricapi.SuperLyricData;
 
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 歌词发布类
@@ -48,11 +60,32 @@ import java.util.Objects;
  */
 public abstract class LyricRelease extends HCBase {
     public static AudioManager audioManager;
-    public static String packageName;
+    public static volatile String packageName;
     public static long versionCode = -1L;
     public static String versionName = "unknown";
-    private static ISuperLyricDistributor iSuperLyricDistributor;
-    private static String lastLyric;
+    private static volatile DistributorConnection distributorConnection;
+    private static final LyricSession session = new LyricSession();
+    private static final LyricDispatcher dispatcher = new LyricDispatcher(
+            "SuperLyric-Dispatcher",
+            64,
+            LyricDispatcher.OverflowPolicy.DROP_OLDEST,
+            LyricRelease::deliver
+    );
+    // 会话状态变化与入队保持同一顺序，避免并发的歌词与停止在队列中乱序
+    private static final LyricPublisher publisher = new LyricPublisher(session, dispatcher);
+    private static final Histogram mediaMetadataHookTime = Metrics.histogram("hook.media_metadata");
+    private static final Histogram sendLyricTime = Metrics.histogram("send.lyric");
+    private static final Histogram sendStopTime = Metrics.histogram("send.stop");
+    private static final Histogram sendPauseTime = Metrics.histogram("send.pause");
+    private static final Histogram sendDataTime = Metrics.histogram("send.data");
+    private static final Histogram deliverTime = Metrics.histogram("binder.deliver");
+    private static final LongAdder deliverFailures = Metrics.counter("binder.failures");
+
+    static {
+        Metrics.gauge("dispatcher", dispatcher::getStats);
+        Metrics.gauge("session", session::getStats);
+        Metrics.gauge("connection", LyricRelease::getConnectionStats);
+    }
 
     /**
      * Hook 热更新服务，用于更改当前 classloader
@@ -69,6 +102,8 @@ public abstract class LyricRelease extends HCBase {
                         int code = intent.getIntExtra("intent_return_code", -2);
                         if (code == 0) {
                             HCData.setClassLoader(application.getClassLoader());
+                            String patchVersion = intent.getStringExtra("intent_patch_new_version");
+                            HookCache.onHotfixApplied(patchVersion == null ? "tinker" : patchVersion);
                         }
                     }
                 }
@@ -100,11 +135,12 @@ public abstract class LyricRelease extends HCBase {
                 new IHook() {
                     @Override
                     public void after() {
-                        if (Objects.equals("android.media.metadata.TITLE", getArg(0))) {
-                            String lyric = (String) getArg(1);
-                            if (lyric == null) return;
-                            sendLyric(lyric);
-                        }
+                        String lyric = MetadataLyric.fromMediaMetadata((String) getArg(0), (String) getArg(1));
+                        if (lyric == null) return;
+
+                        long start = System.nanoTime();
+                        sendLyric(lyric);
+                        mediaMetadataHookTime.recordSince(start);
                     }
                 }
         );
@@ -130,28 +166,21 @@ public abstract class LyricRelease extends HCBase {
      * @param base64Icon 小图标
      */
     public static void sendLyric(String lyric, int delay, String base64Icon) {
-        if (lyric == null) return;
-        if (iSuperLyricDistributor == null) return;
+        if (distributorConnection == null) return;
 
+        // 被去重的歌词同样计入耗时
+        long start = System.nanoTime();
         try {
-            lyric = lyric.trim();
-            if (lyric.isEmpty()) return;
-            if (TextUtils.equals(lyric, lastLyric)) return;
-            lastLyric = lyric;
-
-            iSuperLyricDistributor.onSuperLyric(
+            publisher.publishLyric(lyric, normalized ->
                     new SuperLyricData()
                             .setPackageName(packageName)
-                            .setLyric(lyric)
+                            .setLyric(normalized)
                             .setDelay(delay)
                             .setBase64Icon(base64Icon)
             );
-        } catch (RemoteException e) {
-            logE("LyricRelease", "Failed to send lyric!!", e);
-            return;
+        } finally {
+            sendLyricTime.recordSince(start);
         }
-
-        logD("LyricRelease", "Send lyric: " + lyric + ", delay: " + delay + ", base64Icon:" + base64Icon);
     }
 
     /**
@@ -175,20 +204,38 @@ public abstract class LyricRelease extends HCBase {
 
     /**
      * 发送播放状态暂停
+     * <p>
+     * 当前应用的停止事件只会发送一次，直到下一句歌词到来。
      *
      * @param data 数据
      */
     public static void sendStop(@NonNull SuperLyricData data) {
-        if (iSuperLyricDistributor == null) return;
+        if (distributorConnection == null) return;
 
+        long start = System.nanoTime();
         try {
-            iSuperLyricDistributor.onStop(data);
-        } catch (RemoteException e) {
-            logE("LyricRelease", "Failed to send stop!!", e);
-            return;
+            if (Objects.equals(data.getPackageName(), packageName)) {
+                publisher.publishStop(() -> data);
+            } else {
+                dispatcher.post(new LyricEvent(LyricEvent.Kind.STOP, data));
+            }
+        } finally {
+            sendStopTime.recordSince(start);
         }
+    }
+
+    /**
+     * 检测到播放已经停止时调用，仅在播放中才会发送暂停
+     */
+    public static void sendPause() {
+        if (distributorConnection == null) return;
 
-        logD("LyricRelease", "Stop lyric: " + data);
+        long start = System.nanoTime();
+        try {
+            publisher.publishPause(() -> new SuperLyricData().setPackageName(packageName));
+        } finally {
+            sendPauseTime.recordSince(start);
+        }
     }
 
     /**
@@ -197,16 +244,99 @@ public abstract class LyricRelease extends HCBase {
      * @param data 数据
      */
     public static void sendSuperLyricData(@NonNull SuperLyricData data) {
-        if (iSuperLyricDistributor == null) return;
+        if (distributorConnection == null) return;
 
+        long start = System.nanoTime();
+        dispatcher.post(new LyricEvent(LyricEvent.Kind.DATA, data));
+        sendDataTime.recordSince(start);
+    }
+
+    /**
+     * 设置当前应用的歌词合并间隔，默认关闭合并
+     * <p>
+     * 供会高频重复提交歌词的音乐软件在 Hook 中调用。
+     *
+     * @param millis 两句歌词之间的最小发送间隔 (ms)，0 表示关闭合并
+     */
+    public static void setCoalesceInterval(long millis) {
+        dispatcher.setCoalesceInterval(millis);
+    }
+
+    /**
+     * 暂时缓存歌词，用于等待异步安装的 Hook 就绪
+     *
+     * @param timeoutMillis 最长缓存时长 (ms)
+     */
+    public static void holdDispatch(long timeoutMillis) {
+        dispatcher.hold(timeoutMillis);
+    }
+
+    /**
+     * 恢复分发缓存的歌词
+     */
+    public static void releaseDispatch() {
+        dispatcher.release();
+    }
+
+    /**
+     * 歌词会话统计
+     */
+    @NonNull
+    public static LyricSession.Stats getSessionStats() {
+        return session.getStats();
+    }
+
+    /**
+     * 分发队列统计
+     */
+    @NonNull
+    public static LyricDispatcher.Stats getDispatcherStats() {
+        return dispatcher.getStats();
+    }
+
+    /**
+     * 分发连接统计
+     */
+    @NonNull
+    public static DistributorConnection.Stats getConnectionStats() {
+        DistributorConnection connection = distributorConnection;
+        if (connection == null) return new DistributorConnection.Stats(false, 0, 0, 0, 0, 0);
+        return connection.getStats();
+    }
+
+    /**
+     * 在分发线程中执行实际的 Binder 调用
+     *
+     * @return 事件是否已送达，连接断开期间进入补发缓冲区时返回 false
+     */
+    private static boolean deliver(@NonNull List<LyricEvent> events) throws RemoteException {
+        DistributorConnection connection = distributorConnection;
+        // 尚未获取到接收端时事件无法送达，由分发队列计为失败
+        if (connection == null) throw new RemoteException("Distributor is not connected");
+
+        long start = System.nanoTime();
         try {
-            iSuperLyricDistributor.onSuperLyric(data);
+            if (!connection.deliver(events)) {
+                LogHelper.logD("LyricRelease", () -> "Buffered " + events.size() + " event(s) until reconnected");
+                return false;
+            }
+            deliverTime.recordSince(start);
         } catch (RemoteException e) {
-            logE("LyricRelease", "Failed to send data!!", e);
-            return;
+            deliverFailures.increment();
+            LogHelper.logE("LyricRelease", "deliver", 1000L, () -> "Failed to send " + events.size() + " event(s)!!", e);
+            throw e;
         }
 
-        logD("LyricRelease", "Send data: " + data);
+        if (!LogHelper.isDebug()) return true;
+        for (LyricEvent event : events) {
+            SuperLyricData data = (SuperLyricData) event.payload;
+            switch (event.kind) {
+                case LYRIC -> LogHelper.logD("LyricRelease", () -> "Send lyric: " + LogHelper.describe(data));
+                case STOP -> LogHelper.logD("LyricRelease", () -> "Stop lyric: " + LogHelper.describe(data));
+                case DATA -> LogHelper.logD("LyricRelease", () -> "Send data: " + LogHelper.describe(data));
+            }
+        }
+        return true;
     }
 
     @Override
@@ -215,17 +345,32 @@ public abstract class LyricRelease extends HCBase {
         packageName = context.getPackageName();
         audioManager = (AudioManager) context.getSystemService(Context.AUDIO_SERVICE);
 
-        Intent intent = new Intent(SuperLyricKey.SUPER_LYRIC);
-        intent.putExtra(SuperLyricKey.SUPER_LYRIC_EXEMPT_PACKAGE, packageName);
-        context.sendBroadcast(intent);
-
-        Intent intentBinder = context.registerReceiver(null, new IntentFilter(Intent.ACTION_BATTERY_CHANGED));
-        Objects.requireNonNull(intentBinder, "Failed to obtain designated binder intent, can't use SuperLyric!!");
-
-        Bundle bundle = intentBinder.getBundleExtra(SuperLyricKey.SUPER_LYRIC_INFO);
-        Objects.requireNonNull(bundle, "Failed to obtain designated binder bundle, please try to reboot system!!");
-
-        iSuperLyricDistributor = ISuperLyricDistributor.Stub.asInterface(bundle.getBinder(SuperLyricKey.SUPER_LYRIC_BINDER));
+        StartupTracer.Span span = StartupTracer.begin("application", "binder_lookup");
+        try {
+            Intent intent = new Intent(SuperLyricKey.SUPER_LYRIC);
+            intent.putExtra(SuperLyricKey.SUPER_LYRIC_EXEMPT_PACKAGE, packageName);
+            context.sendBroadcast(intent);
+
+            Intent intentBinder = context.registerReceiver(null, new IntentFilter(Intent.ACTION_BATTERY_CHANGED));
+            Objects.requireNonNull(intentBinder, "Failed to obtain designated binder intent, can't use SuperLyric!!");
+
+            Bundle bundle = intentBinder.getBundleExtra(SuperLyricKey.SUPER_LYRIC_INFO);
+            Objects.requireNonNull(bundle, "Failed to obtain designated binder bundle, please try to reboot system!!");
+
+            DistributorChannel channel = DistributorChannel.create(bundle);
+            Objects.requireNonNull(channel, "Failed to obtain designated binder, please try to reboot system!!");
+
+            DistributorConnection connection = new DistributorConnection(context);
+            try {
+                connection.attach(channel);
+            } catch (RemoteException e) {
+                throw new IllegalStateException("Designated binder is already dead, please try to reboot system!!", e);
+            }
+            distributorConnection = connection;
+        } finally {
+            span.close();
+        }
+        Metrics.registerDumpReceiver(context);
 
         try {
             PackageInfo packageInfo = context.getPackageManager().getPackageInfo(packageName, 0);
@@ -236,6 +381,6 @@ public abstract class LyricRelease extends HCBase {
             logW(TAG, "Failed to obtain package info!!", e);
         }
 
-        logD(TAG, "Success to obtain binder: " + iSuperLyricDistributor + ", caller package: " + packageName);
+        logD(TAG, "Success to obtain binder: " + distributorConnection + ", caller package: " + packageName);
     }
 }
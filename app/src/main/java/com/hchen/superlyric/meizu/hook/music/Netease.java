@@ -24,17 +24,12 @@ import android.content.SharedPreferences;
 import androidx.annotation.NonNull;
 
 import com.hchen.collect.Collect;
-import com.hchen.dexkitcache.DexkitCache;
 import com.hchen.hooktool.HCData;
 import com.hchen.hooktool.hook.IHook;
+import com.hchen.superlyric.meizu.helper.DexkitHelper;
 import com.hchen.superlyric.meizu.helper.MeizuHelper;
 import com.hchen.superlyric.meizu.hook.LyricRelease;
 
-import org.luckypray.dexkit.query.FindClass;
-import org.luckypray.dexkit.query.FindMethod;
-import org.luckypray.dexkit.query.matchers.ClassMatcher;
-import org.luckypray.dexkit.query.matchers.MethodMatcher;
-
 import java.lang.reflect.Method;
 import java.util.Objects;
 
@@ -43,8 +38,12 @@ import java.util.Objects;
  */
 @Collect(targetPackage = "com.netease.cloudmusic")
 public class Netease extends LyricRelease {
+    // 元数据歌词的合并间隔 (ms)
+    private static final long METADATA_COALESCE_INTERVAL = 100L;
+
     @Override
     protected void init() {
+        declareDexkit();
         hookTencentTinker();
         if (existsClass("android.app.Instrumentation")) {
             hookMethod("android.app.Instrumentation",
@@ -63,6 +62,15 @@ public class Netease extends LyricRelease {
         }
     }
 
+    /**
+     * 预先声明所有 DexKit 查询，缓存失效时在同一次扫描中批量执行
+     */
+    private static void declareDexkit() {
+        DexkitHelper.declareMethodUsingStrings("netease$1", "KEY_SHOW_LOCK_SCREEN_PERMISSION");
+        DexkitHelper.declareClassUsingStrings("netease$2",
+                "com/netease/cloudmusic/module/lyric/flyme/StatusBarLyricSettingManager.class:setSwitchStatus:(Z)V");
+    }
+
     @Override
     protected void initApplicationAfter(@NonNull Context context) {
         super.initApplicationAfter(context);
@@ -72,37 +80,30 @@ public class Netease extends LyricRelease {
             MeizuHelper.shallowLayerDeviceMock();
             MeizuHelper.hookNotificationLyric();
 
-            Method method = DexkitCache.findMember("netease$1", bridge -> bridge.findMethod(FindMethod.create()
-                    .matcher(MethodMatcher.create()
-                            .declaredClass(ClassMatcher.create()
-                                    .usingStrings("KEY_SHOW_LOCK_SCREEN_PERMISSION")
-                            )
-                            .usingStrings("KEY_SHOW_LOCK_SCREEN_PERMISSION")
-                    )
-            ).single());
-            hook(method, returnResult(null));
+            DexkitHelper.install("netease", () -> {
+                Method method = DexkitHelper.findMember("netease$1");
+                hook(method, returnResult(null));
 
-            Class<?> clazz = DexkitCache.findMember("netease$2", bridge -> bridge.findClass(FindClass.create()
-                    .matcher(ClassMatcher.create()
-                            .usingStrings("com/netease/cloudmusic/module/lyric/flyme/StatusBarLyricSettingManager.class:setSwitchStatus:(Z)V")
-                    )
-            ).single());
-            for (Method m : clazz.getDeclaredMethods()) {
-                if (m.getReturnType().equals(boolean.class)) {
-                    hook(m, returnResult(true));
-                } else if (m.getParameterCount() == 1 && m.getParameterTypes()[0].equals(boolean.class)) {
-                    hook(m, setArg(0, true));
-                } else if (m.getReturnType().equals(SharedPreferences.class)) {
-                    hook(m, new IHook() {
-                        @Override
-                        public void after() {
-                            SharedPreferences sp = (SharedPreferences) getResult();
-                            sp.edit().putBoolean("status_bar_lyric_setting_key", true).apply();
-                        }
-                    });
+                Class<?> clazz = DexkitHelper.findMember("netease$2");
+                for (Method m : clazz.getDeclaredMethods()) {
+                    if (m.getReturnType().equals(boolean.class)) {
+                        hook(m, returnResult(true));
+                    } else if (m.getParameterCount() == 1 && m.getParameterTypes()[0].equals(boolean.class)) {
+                        hook(m, setArg(0, true));
+                    } else if (m.getReturnType().equals(SharedPreferences.class)) {
+                        hook(m, new IHook() {
+                            @Override
+                            public void after() {
+                                SharedPreferences sp = (SharedPreferences) getResult();
+                                sp.edit().putBoolean("status_bar_lyric_setting_key", true).apply();
+                            }
+                        });
+                    }
                 }
-            }
+            });
         } else {
+            // 旧版本通过元数据提供歌词，同一句歌词会随元数据反复提交
+            setCoalesceInterval(METADATA_COALESCE_INTERVAL);
             getMediaMetadataCompatLyric();
         }
     }
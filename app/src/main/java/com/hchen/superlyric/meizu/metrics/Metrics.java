@@ -0,0 +1,145 @@
+/*
+ * This file is part of SuperLyric.
+
+ * SuperLyric is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HChenX
+ */
+package com.hchen.superlyric.meizu.metrics;
+
+import static com.hchen.hooktool.log.XposedLog.logI;
+import static com.hchen.hooktool.log.XposedLog.logW;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+
+import androidx.annotation.NonNull;
+
+import com.hchen.superlyric.meizu.BuildConfig;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Hook 路径指标注册表
+ * <p>
+ * 计数器与直方图按名称注册一次，调用点应保存返回的实例，记录时不需要再查表。
+ * 各模块已有的 Stats 快照以 gauge 的形式注册，在输出时统一读取。
+ * <p>
+ * 调试版本中可通过广播输出当前快照：
+ * <pre>
+ * adb shell am broadcast -a com.hchen.superlyric.meizu.action.DUMP_METRICS
+ * </pre>
+ * 结果会写入 logcat，并作为广播的 result data 返回；同时导出 {@link StartupTracer} 的启动追踪。
+ *
+ * @author 焕晨HChen
+ */
+public final class Metrics {
+    private static final String TAG = "Metrics";
+    public static final String ACTION_DUMP_METRICS = "com.hchen.superlyric.meizu.action.DUMP_METRICS";
+    private static final ConcurrentHashMap<String, LongAdder> counterMap = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Histogram> histogramMap = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Supplier<?>> gaugeMap = new ConcurrentHashMap<>();
+    private static boolean isReceiverRegistered = false;
+
+    private Metrics() {
+    }
+
+    /**
+     * 获取或创建计数器
+     */
+    @NonNull
+    public static LongAdder counter(@NonNull String name) {
+        return counterMap.computeIfAbsent(name, n -> new LongAdder());
+    }
+
+    /**
+     * 获取或创建耗时直方图
+     */
+    @NonNull
+    public static Histogram histogram(@NonNull String name) {
+        return histogramMap.computeIfAbsent(name, n -> new Histogram());
+    }
+
+    /**
+     * 注册在输出时读取的快照，例如各模块的 Stats
+     */
+    public static void gauge(@NonNull String name, @NonNull Supplier<?> supplier) {
+        gaugeMap.put(name, supplier);
+    }
+
+    /**
+     * 生成当前所有指标的文本快照，按名称排序
+     */
+    @NonNull
+    public static String dump() {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, LongAdder> entry : new TreeMap<>(counterMap).entrySet()) {
+            builder.append(entry.getKey()).append(": ").append(entry.getValue().sum()).append('\n');
+        }
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(histogramMap).entrySet()) {
+            builder.append(entry.getKey()).append(": ").append(entry.getValue().getSnapshot()).append('\n');
+        }
+        for (Map.Entry<String, Supplier<?>> entry : new TreeMap<>(gaugeMap).entrySet()) {
+            Object value;
+            try {
+                value = entry.getValue().get();
+            } catch (Throwable e) {
+                value = "<" + e + ">";
+            }
+            builder.append(entry.getKey()).append(": ").append(value).append('\n');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 将当前快照逐行输出到 logcat
+     */
+    public static void dumpToLog() {
+        logDump(dump());
+    }
+
+    /**
+     * 调试版本中注册输出快照的广播接收器
+     */
+    public static synchronized void registerDumpReceiver(@NonNull Context context) {
+        if (!BuildConfig.DEBUG || isReceiverRegistered) return;
+
+        try {
+            context.registerReceiver(new BroadcastReceiver() {
+                @Override
+                public void onReceive(Context context, Intent intent) {
+                    String dump = dump();
+                    logDump(dump);
+                    StartupTracer.export(context);
+                    setResultData(context.getPackageName() + "\n" + dump);
+                }
+            }, new IntentFilter(ACTION_DUMP_METRICS), Context.RECEIVER_EXPORTED);
+            isReceiverRegistered = true;
+        } catch (Throwable e) {
+            logW(TAG, "Failed to register metrics receiver!!", e);
+        }
+    }
+
+    private static void logDump(@NonNull String dump) {
+        for (String line : dump.split("\n")) {
+            if (!line.isEmpty()) logI(TAG, line);
+        }
+    }
+}
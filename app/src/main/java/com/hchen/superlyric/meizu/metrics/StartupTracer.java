@@ -0,0 +1,191 @@
+/*
+ * This file is part of SuperLyric.
+
+ * SuperLyric is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HChenX
+ */
+package com.hchen.superlyric.meizu.metrics;
+
+import static com.hchen.hooktool.log.XposedLog.logD;
+import static com.hchen.hooktool.log.XposedLog.logI;
+import static com.hchen.hooktool.log.XposedLog.logW;
+
+import android.content.Context;
+import android.os.Debug;
+import android.os.Process;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.gson.Gson;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * 启动阶段耗时追踪
+ * <p>
+ * 记录 zygote、加载应用、Application 创建等阶段以及每个 Hook 类的墙钟时间与线程 CPU 时间，
+ * 可导出为 Chrome Trace 格式 (chrome://tracing 或 Perfetto 可直接打开)。
+ * 只在启动期间使用，不应放在热路径上。
+ *
+ * @author 焕晨HChen
+ */
+public final class StartupTracer {
+    private static final String TAG = "StartupTracer";
+    private static final String TRACE_FILE = "startup_trace.json";
+    // 防止异常情况下无限增长
+    private static final int MAX_EVENTS = 2048;
+    private static final ArrayList<TraceEvent> events = new ArrayList<>();
+    private static final Gson gson = new Gson();
+
+    private StartupTracer() {
+    }
+
+    /**
+     * 开始一个阶段，需要在 finally 中调用 {@link Span#close()} 结束
+     *
+     * @param category 阶段分类，例如 zygote、load_package、application、dexkit
+     * @param name     阶段名称
+     */
+    @NonNull
+    public static Span begin(@NonNull String category, @NonNull String name) {
+        return new Span(category, name);
+    }
+
+    /**
+     * 已记录的阶段数
+     */
+    public static synchronized int size() {
+        return events.size();
+    }
+
+    /**
+     * 导出为 Chrome Trace JSON
+     */
+    @NonNull
+    public static String toChromeTrace() {
+        ChromeTrace trace = new ChromeTrace();
+        synchronized (StartupTracer.class) {
+            trace.traceEvents = new ArrayList<>(events);
+        }
+        return gson.toJson(trace);
+    }
+
+    /**
+     * 将追踪结果写入应用私有目录
+     *
+     * @return 写入的文件，失败时返回 null
+     */
+    @Nullable
+    public static File export(@NonNull Context context) {
+        File dir = new File(context.getFilesDir(), "superlyric");
+        File file = new File(dir, TRACE_FILE);
+        if (!dir.exists() && !dir.mkdirs()) {
+            logW(TAG, "Failed to create trace dir: " + dir);
+            return null;
+        }
+
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write(toChromeTrace());
+        } catch (IOException e) {
+            logW(TAG, "Failed to export startup trace!!", e);
+            return null;
+        }
+        logI(TAG, "Startup trace exported: " + file + ", events: " + size());
+        return file;
+    }
+
+    private static synchronized void add(@NonNull TraceEvent event) {
+        if (events.size() >= MAX_EVENTS) return;
+        events.add(event);
+    }
+
+    private static long threadCpuTimeNanos() {
+        long nanos = Debug.threadCpuTimeNanos();
+        return Math.max(nanos, 0);
+    }
+
+    /**
+     * 一个正在进行的阶段
+     * <p>
+     * 不实现 {@link AutoCloseable}，所有调用方统一在 finally 中结束阶段。
+     */
+    public static final class Span {
+        @NonNull
+        private final String category;
+        @NonNull
+        private final String name;
+        private final long startWallNanos;
+        private final long startCpuNanos;
+        private boolean isClosed = false;
+
+        private Span(@NonNull String category, @NonNull String name) {
+            this.category = category;
+            this.name = name;
+            this.startCpuNanos = threadCpuTimeNanos();
+            this.startWallNanos = System.nanoTime();
+        }
+
+        /**
+         * 结束阶段并记录耗时，重复调用无效
+         */
+        public void close() {
+            if (isClosed) return;
+            isClosed = true;
+
+            long wallNanos = System.nanoTime() - startWallNanos;
+            long cpuNanos = threadCpuTimeNanos() - startCpuNanos;
+
+            TraceEvent event = new TraceEvent();
+            event.name = name;
+            event.cat = category;
+            event.ph = "X";
+            event.ts = startWallNanos / 1000;
+            event.dur = wallNanos / 1000;
+            event.pid = Process.myPid();
+            event.tid = Process.myTid();
+            event.args = new LinkedHashMap<>();
+            event.args.put("cpu_us", cpuNanos / 1000);
+            event.args.put("thread", Thread.currentThread().getName());
+            add(event);
+
+            logD(TAG, category + "/" + name + ", wall: " + wallNanos / 1000 + "us, cpu: " + cpuNanos / 1000 + "us");
+        }
+    }
+
+    private static class ChromeTrace {
+        List<TraceEvent> traceEvents;
+        String displayTimeUnit = "ms";
+    }
+
+    private static class TraceEvent {
+        String name;
+        String cat;
+        String ph;
+        long ts;
+        long dur;
+        int pid;
+        int tid;
+        LinkedHashMap<String, Object> args;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * This file is part of SuperLyric.
+
+ * SuperLyric is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HChenX
+ */
+package com.hchen.superlyric.meizu.benchmark;
+
+import com.hchen.collect.Collect;
+
+/**
+ * 用于生成 CollectMap 的示例 Hook 类，目标包名与模块实际支持的应用保持一致
+ *
+ * @author 焕晨HChen
+ */
+public final class CollectFixtures {
+    private CollectFixtures() {
+    }
+
+    @Collect(targetPackage = "com.netease.cloudmusic")
+    public static class Netease {
+    }
+
+    @Collect(targetPackage = "com.tencent.qqmusic")
+    public static class QQMusic {
+    }
+
+    @Collect(targetPackage = "com.tencent.qqmusic", onApplication = false,
+            targetProcess = {Collect.MAIN_PROCESS, ":QQPlayerService", "com.tencent.qqmusic:*wns*"})
+    public static class QQMusicLoadPackage {
+    }
+
+    @Collect(targetPackage = "com.kugou.android")
+    public static class Kugou {
+    }
+
+    @Collect(targetPackage = "cn.kuwo.player")
+    public static class Kuwo {
+    }
+
+    @Collect(targetPackage = "com.apple.android.music", onZygote = true)
+    public static class AppleMusic {
+    }
+}
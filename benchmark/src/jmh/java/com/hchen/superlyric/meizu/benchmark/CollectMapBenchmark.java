@@ -0,0 +1,102 @@
+/*
+ * This file is part of SuperLyric.
+
+ * SuperLyric is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HChenX
+ */
+package com.hchen.superlyric.meizu.benchmark;
+
+import com.hchen.collect.CollectEntry;
+import com.hchen.collect.CollectMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 注解处理器生成的 CollectMap 查表，示例 Hook 类见 {@link CollectFixtures}
+ *
+ * @author 焕晨HChen
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CollectMapBenchmark {
+    // 每个进程加载时都会先判断，绝大多数进程都不是目标应用
+    private final String missPackage = new String("com.android.systemui".toCharArray());
+    private final String hitPackage = new String("com.tencent.qqmusic".toCharArray());
+    private final String playerProcess = "com.tencent.qqmusic:QQPlayerService";
+    private final String otherProcess = "com.tencent.qqmusic:downloadservice";
+
+    @Benchmark
+    public boolean isTargetPackageMiss() {
+        return CollectMap.isTargetPackage(missPackage);
+    }
+
+    @Benchmark
+    public boolean isTargetPackageHit() {
+        return CollectMap.isTargetPackage(hitPackage);
+    }
+
+    /**
+     * 取出目标应用的 Hook 并解析阶段标记
+     */
+    @Benchmark
+    public void resolveEntries(Blackhole blackhole) {
+        for (CollectEntry entry : CollectMap.getEntries(hitPackage)) {
+            blackhole.consume(entry.fullClassName());
+            blackhole.consume(entry.isOnLoadPackage());
+            blackhole.consume(entry.isOnApplication());
+            blackhole.consume(entry.isOnZygote());
+        }
+    }
+
+    /**
+     * 取出目标应用的 Hook 并创建实例
+     */
+    @Benchmark
+    public void instantiateEntries(Blackhole blackhole) {
+        for (CollectEntry entry : CollectMap.getEntries(hitPackage)) {
+            blackhole.consume(entry.newInstance());
+        }
+    }
+
+    /**
+     * 按进程筛选需要安装的 Hook，分别对应播放进程与无关进程
+     */
+    @Benchmark
+    public int filterPlayerProcess() {
+        return countTargets(playerProcess);
+    }
+
+    @Benchmark
+    public int filterOtherProcess() {
+        return countTargets(otherProcess);
+    }
+
+    private int countTargets(String processName) {
+        int count = 0;
+        for (CollectEntry entry : CollectMap.getEntries(hitPackage)) {
+            if (entry.isTargetProcess(hitPackage, processName)) count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * This file is part of SuperLyric.
+
+ * SuperLyric is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HChenX
+ */
+package com.hchen.superlyric.meizu.benchmark;
+
+import com.hchen.superlyric.meizu.helper.IconCache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 小图标编码缓存的命中与淘汰
+ *
+ * @author 焕晨HChen
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class IconCacheBenchmark {
+    private static final String PACKAGE_NAME = "com.netease.cloudmusic";
+    // 与 MeizuHelper 中的上限一致
+    private static final long MAX_BYTES = 256 * 1024;
+    private String base64Icon;
+    private IconCache cache;
+    private IconCache smallCache;
+    private int resId;
+
+    @Setup
+    public void setup() {
+        byte[] png = new byte[3 * 1024];
+        Arrays.fill(png, (byte) 0x5A);
+        base64Icon = Base64.getEncoder().encodeToString(png);
+        cache = new IconCache(MAX_BYTES);
+        // 只能容纳少量图标，每次未命中都会触发淘汰
+        smallCache = new IconCache(4L * base64Icon.length() * 2);
+        resId = 0x7f080000;
+    }
+
+    @Benchmark
+    public String resourceHit() {
+        return cache.get(IconCache.Key.ofResource(PACKAGE_NAME, 0x7f080001), () -> base64Icon);
+    }
+
+    /**
+     * 每次使用新的资源 id，持续未命中并淘汰旧图标
+     */
+    @Benchmark
+    public String missWithEviction() {
+        return smallCache.get(IconCache.Key.ofResource(PACKAGE_NAME, ++resId), () -> base64Icon);
+    }
+}
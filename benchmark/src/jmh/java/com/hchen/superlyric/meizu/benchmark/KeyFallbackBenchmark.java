@@ -0,0 +1,75 @@
+/*
+ * This file is part of SuperLyric.
+
+ * SuperLyric is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HChenX
+ */
+package com.hchen.superlyric.meizu.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * SuperLyricKey 的新旧 Key 回退读取，使用 HashMap 代替 Bundle
+ * <p>
+ * 应用代码直接调用 Bundle 的读取方法，这里通过查找函数复现同样的回退顺序。
+ *
+ * @author 焕晨HChen
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class KeyFallbackBenchmark {
+    private final HashMap<String, Object> newBundle = new HashMap<>();
+    private final HashMap<String, Object> oldBundle = new HashMap<>();
+    private final HashMap<String, Object> emptyBundle = new HashMap<>();
+
+    @Setup
+    public void setup() {
+        newBundle.put("super_lyric_exempt_package", "com.netease.cloudmusic");
+        oldBundle.put("super_lyric_add_package", "com.netease.cloudmusic");
+    }
+
+    @Benchmark
+    public Object newKey() {
+        return get(newBundle::get, "super_lyric_exempt_package", "super_lyric_add_package");
+    }
+
+    @Benchmark
+    public Object oldKey() {
+        return get(oldBundle::get, "super_lyric_exempt_package", "super_lyric_add_package");
+    }
+
+    @Benchmark
+    public Object missing() {
+        return get(emptyBundle::get, "super_lyric_exempt_package", "super_lyric_add_package");
+    }
+
+    private static <T> T get(Function<String, T> getter, String key, String oldKey) {
+        T result = getter.apply(key);
+        if (Objects.isNull(result)) result = getter.apply(oldKey);
+        return result;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * This file is part of SuperLyric.
+
+ * SuperLyric is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HChenX
+ */
+package com.hchen.superlyric.meizu.benchmark;
+
+import com.hchen.superlyric.meizu.dispatch.LyricSession;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LyricRelease.sendLyric 中的规范化与去重
+ *
+ * @author 焕晨HChen
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LyricPathBenchmark {
+    private static final String[] LYRICS = {
+            "  我们的爱 过了就不再回来  ",
+            "直到现在 我还默默的等待",
+            "Never gonna give you up",
+            "\t纯音乐，请欣赏\n",
+            "Is this the real life? Is this just fantasy?"
+    };
+    private LyricSession session;
+    private int index;
+
+    @Setup
+    public void setup() {
+        session = new LyricSession();
+        index = 0;
+    }
+
+    /**
+     * 同一句歌词重复上报，应走去重分支
+     */
+    @Benchmark
+    public boolean repeatedLyric() {
+        return sendLyric(LYRICS[1]);
+    }
+
+    /**
+     * 每次上报不同的歌词
+     */
+    @Benchmark
+    public boolean changingLyric() {
+        index = (index + 1) % LYRICS.length;
+        return sendLyric(LYRICS[index]);
+    }
+
+    /**
+     * 歌词与停止交替，覆盖停止后重新进入播放的状态变化
+     */
+    @Benchmark
+    public boolean lyricThenStop() {
+        sendLyric(LYRICS[2]);
+        return session.onStop();
+    }
+
+    private boolean sendLyric(String lyric) {
+        return session.acceptLyric(lyric) != null;
+    }
+}
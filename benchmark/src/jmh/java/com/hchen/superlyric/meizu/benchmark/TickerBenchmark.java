@@ -0,0 +1,166 @@
+/*
+ * This file is part of SuperLyric.
+
+ * SuperLyric is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HChenX
+ */
+package com.hchen.superlyric.meizu.benchmark;
+
+import com.hchen.superlyric.meizu.helper.NotificationDedupe;
+import com.hchen.superlyric.meizu.helper.NotificationFilter;
+import com.hchen.superlyric.meizu.helper.PhraseMatcher;
+import com.hchen.superlyric.meizu.helper.TickerNormalizer;
+import com.hchen.superlyric.meizu.helper.TickerPhrases;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MeizuHelper 通知 Hook 中的过滤、规范化与短语匹配
+ *
+ * @author 焕晨HChen
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TickerBenchmark {
+    private static final int LYRIC_FLAGS = NotificationFilter.FLAG_ALWAYS_SHOW_TICKER;
+    private static final String PACKAGE_NAME = "com.netease.cloudmusic";
+
+    /**
+     * tickerText 的实际类型，应用常用 SpannableString 等非 String 实现
+     */
+    @Param({"string", "builder"})
+    public String tickerType;
+
+    /**
+     * 停止短语数量，用于观察多模式匹配随短语数量的变化
+     */
+    @Param({"3", "32"})
+    public int phraseCount;
+
+    private CharSequence lyricTicker;
+    private CharSequence otherTicker;
+    private CharSequence placeholderTicker;
+    private NotificationFilter filter;
+    private NotificationDedupe dedupe;
+    private TickerPhrases phrases;
+    private PhraseMatcher matcher;
+    private String[] stopPhrases;
+    private final Object notification = new Object();
+
+    @Setup
+    public void setup() {
+        lyricTicker = wrap("  我们的爱 过了就不再回来，直到现在 我还默默的等待  ");
+        otherTicker = wrap("正在下载：42%");
+        placeholderTicker = wrap("网易云音乐正在播放");
+
+        stopPhrases = new String[phraseCount];
+        stopPhrases[0] = "纯音乐";
+        stopPhrases[1] = "无歌词";
+        stopPhrases[2] = "歌曲已暂停，即将隐藏歌词";
+        for (int i = 3; i < phraseCount; i++) {
+            stopPhrases[i] = "停止短语" + i;
+        }
+        phrases = new TickerPhrases.Builder()
+                .addStopPhrases(stopPhrases)
+                .addPlaceholder("网易云音乐正在播放")
+                .build();
+        TickerPhrases.register(PACKAGE_NAME, phrases);
+        matcher = new PhraseMatcher(stopPhrases);
+
+        filter = new NotificationFilter(16);
+        dedupe = new NotificationDedupe();
+        // 预先记录歌词通知位，使占位文本走完整比对
+        filter.classify(null, 1, LYRIC_FLAGS, lyricTicker, phrases);
+    }
+
+    private CharSequence wrap(String text) {
+        return "builder".equals(tickerType) ? new StringBuilder(text) : text;
+    }
+
+    /**
+     * 带歌词标记的通知：分类、规范化与停止短语匹配
+     */
+    @Benchmark
+    public int lyricNotification() {
+        int type = filter.classify(null, 1, LYRIC_FLAGS, lyricTicker, phrases);
+        if (type != NotificationFilter.LYRIC) return type;
+
+        String lyric = TickerNormalizer.normalize(lyricTicker);
+        return lyric == null ? -1 : phrases.classifyLyric(lyric);
+    }
+
+    /**
+     * 与歌词无关的通知，应在过滤阶段直接放行
+     */
+    @Benchmark
+    public int otherNotification() {
+        return filter.classify("download", 7, 0, otherTicker, phrases);
+    }
+
+    /**
+     * 歌词通知位上的占位文本
+     */
+    @Benchmark
+    public int placeholderNotification() {
+        int type = filter.classify(null, 1, 0, placeholderTicker, phrases);
+        if (type != NotificationFilter.PLACEHOLDER_CANDIDATE) return type;
+        return phrases.classifyTicker(placeholderTicker);
+    }
+
+    /**
+     * 改动前的处理方式：多次 toString().trim() 与逐个 contains
+     */
+    @Benchmark
+    public boolean legacyLyricNotification() {
+        boolean isStop = false;
+        for (String phrase : stopPhrases) {
+            if (lyricTicker.toString().trim().contains(phrase)) {
+                isStop = true;
+                break;
+            }
+        }
+        return lyricTicker.toString().trim().isEmpty() || isStop;
+    }
+
+    /**
+     * 只做多模式匹配
+     */
+    @Benchmark
+    public int phraseMatcher() {
+        return matcher.find(lyricTicker);
+    }
+
+    /**
+     * 经过 NotificationManagerCompat 与 NotificationManager 两层 Hook 的同一条通知
+     */
+    @Benchmark
+    public boolean nestedDedupe() {
+        boolean outer = dedupe.enter(notification);
+        boolean inner = dedupe.enter(notification);
+        dedupe.exit();
+        dedupe.exit();
+        return outer | inner;
+    }
+}
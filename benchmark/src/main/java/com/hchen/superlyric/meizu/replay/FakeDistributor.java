@@ -0,0 +1,97 @@
+/*
+ * This file is part of SuperLyric.
+
+ * SuperLyric is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HChenX
+ */
+package com.hchen.superlyric.meizu.replay;
+
+import androidx.annotation.NonNull;
+
+import com.hchen.superlyric.meizu.dispatch.LyricDispatcher;
+import com.hchen.superlyric.meizu.dispatch.LyricEvent;
+import com.hchen.superlyric.meizu.metrics.Histogram;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 替代 ISuperLyricDistributor 的本地接收端
+ * <p>
+ * 记录收到的事件与从 Hook 入口到接收端的端到端延迟，可以模拟每次 Binder 调用的耗时。
+ *
+ * @author 焕晨HChen
+ */
+final class FakeDistributor implements LyricDispatcher.Sink {
+    private final long binderCostNanos;
+    private final Histogram latency = new Histogram();
+    private final LongAdder lyrics = new LongAdder();
+    private final LongAdder stops = new LongAdder();
+    private final LongAdder calls = new LongAdder();
+
+    /**
+     * @param binderCostMicros 每次分发调用的模拟耗时 (μs)
+     */
+    FakeDistributor(long binderCostMicros) {
+        this.binderCostNanos = binderCostMicros * 1_000L;
+    }
+
+    /**
+     * 分发事件的数据
+     *
+     * @param lyric      歌词，停止事件为 null
+     * @param base64Icon 小图标
+     * @param startNanos 进入 Hook 的时间
+     */
+    record Payload(String packageName, String lyric, String base64Icon, long startNanos) {
+    }
+
+    @Override
+    public boolean deliver(@NonNull List<LyricEvent> events) {
+        calls.increment();
+        if (binderCostNanos > 0) LockSupport.parkNanos(binderCostNanos);
+
+        long now = System.nanoTime();
+        for (LyricEvent event : events) {
+            Payload payload = (Payload) event.payload;
+            latency.record(now - payload.startNanos());
+            if (event.kind == LyricEvent.Kind.LYRIC) lyrics.increment();
+            else stops.increment();
+        }
+        return true;
+    }
+
+    long getReceived() {
+        return lyrics.sum() + stops.sum();
+    }
+
+    long getLyrics() {
+        return lyrics.sum();
+    }
+
+    long getStops() {
+        return stops.sum();
+    }
+
+    long getCalls() {
+        return calls.sum();
+    }
+
+    @NonNull
+    Histogram.Snapshot getLatency() {
+        return latency.getSnapshot();
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * This file is part of SuperLyric.
+
+ * SuperLyric is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HChenX
+ */
+package com.hchen.superlyric.meizu.replay;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 离线回放录制的通知与元数据 Hook 调用，评估歌词处理流程的开销
+ * <p>
+ * 参数均为 --name=value 形式：
+ * <ul>
+ *     <li>trace：录制文件路径，默认使用内置的示例序列；</li>
+ *     <li>package：模拟的音乐软件包名，决定使用的短语表，默认 com.netease.cloudmusic；</li>
+ *     <li>speed：按录制时间回放的倍速，0 表示不等待，默认 1；</li>
+ *     <li>rate：按固定速率回放 (条/秒)，设置后忽略 speed；</li>
+ *     <li>loops：回放次数，默认 1；</li>
+ *     <li>warmup：正式回放前的预热次数，默认 0；</li>
+ *     <li>coalesce：歌词合并间隔 (ms)，0 表示关闭合并，默认与模块一致为 0；</li>
+ *     <li>binder：每次分发调用的模拟耗时 (μs)，默认 0。</li>
+ * </ul>
+ * 例如：./gradlew :benchmark:run --args="--rate=5000 --loops=200 --warmup=20"
+ *
+ * @author 焕晨HChen
+ */
+public final class ReplayHarness {
+    private static final String DEFAULT_TRACE = "/replay/sample.jsonl";
+    private static final String DEFAULT_PACKAGE = "com.netease.cloudmusic";
+    private static final long DEFAULT_COALESCE_INTERVAL = 0L;
+    // 循环回放时两轮之间的录制时间间隔 (ms)
+    private static final long LOOP_GAP_MILLIS = 1000L;
+    // 剩余等待时间小于该值时改为自旋，保证高速回放时的节奏
+    private static final long SPIN_THRESHOLD_NANOS = 50_000L;
+    private static final long DRAIN_TIMEOUT_MILLIS = 10_000L;
+
+    private final ReplayTrace trace;
+    private final String packageName;
+    private final double speed;
+    private final long rate;
+    private final long coalesceMillis;
+    private final long binderMicros;
+
+    private ReplayHarness(@NonNull ReplayTrace trace, @NonNull String packageName, double speed, long rate,
+                          long coalesceMillis, long binderMicros) {
+        this.trace = trace;
+        this.packageName = packageName;
+        this.speed = speed;
+        this.rate = rate;
+        this.coalesceMillis = coalesceMillis;
+        this.binderMicros = binderMicros;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        HashMap<String, String> options = parseOptions(args);
+        String tracePath = options.get("trace");
+        ReplayTrace trace = tracePath == null ? ReplayTrace.loadResource(DEFAULT_TRACE) : ReplayTrace.load(Path.of(tracePath));
+
+        ReplayHarness harness = new ReplayHarness(
+                trace,
+                options.getOrDefault("package", DEFAULT_PACKAGE),
+                Double.parseDouble(options.getOrDefault("speed", "1")),
+                Long.parseLong(options.getOrDefault("rate", "0")),
+                Long.parseLong(options.getOrDefault("coalesce", String.valueOf(DEFAULT_COALESCE_INTERVAL))),
+                Long.parseLong(options.getOrDefault("binder", "0"))
+        );
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "0"));
+        int loops = Integer.parseInt(options.getOrDefault("loops", "1"));
+
+        if (warmup > 0) harness.run(warmup);
+        Result result = harness.run(loops);
+        System.out.println("Trace: " + (tracePath == null ? DEFAULT_TRACE : tracePath) +
+                ", records=" + trace.getRecords().size() + ", loops=" + loops + ", " + harness.describePacing());
+        result.print();
+    }
+
+    @NonNull
+    private static HashMap<String, String> parseOptions(@NonNull String[] args) {
+        HashMap<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("="))
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+
+            int index = arg.indexOf('=');
+            options.put(arg.substring(2, index), arg.substring(index + 1));
+        }
+        return options;
+    }
+
+    @NonNull
+    private String describePacing() {
+        if (rate > 0) return "rate=" + rate + "/s";
+        if (speed > 0) return "speed=" + speed + "x";
+        return "unpaced";
+    }
+
+    /**
+     * 使用新的处理流程与接收端回放指定次数
+     */
+    @NonNull
+    private Result run(int loops) throws InterruptedException {
+        FakeDistributor distributor = new FakeDistributor(binderMicros);
+        ReplayPipeline pipeline = new ReplayPipeline(packageName, coalesceMillis, distributor);
+        List<ReplayTrace.Record> records = trace.getRecords();
+        long firstMillis = records.get(0).t;
+        long loopSpanMillis = trace.getDurationMillis() + LOOP_GAP_MILLIS;
+
+        long allocatedBefore = allocatedBytes();
+        long begin = System.nanoTime();
+        long index = 0;
+        for (int loop = 0; loop < loops; loop++) {
+            for (ReplayTrace.Record record : records) {
+                if (rate > 0) {
+                    waitUntil(begin + index * 1_000_000_000L / rate);
+                } else if (speed > 0) {
+                    long offsetMillis = loop * loopSpanMillis + record.t - firstMillis;
+                    waitUntil(begin + (long) (offsetMillis * 1_000_000L / speed));
+                }
+                pipeline.replay(record);
+                index++;
+            }
+        }
+        long replayNanos = System.nanoTime() - begin;
+        boolean drained = pipeline.drain(DRAIN_TIMEOUT_MILLIS);
+        long allocated = allocatedBytes() - allocatedBefore;
+
+        return new Result(pipeline, distributor, index, replayNanos, allocated, drained);
+    }
+
+    private static void waitUntil(long deadlineNanos) {
+        long remaining;
+        while ((remaining = deadlineNanos - System.nanoTime()) > 0) {
+            if (remaining > SPIN_THRESHOLD_NANOS) LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NANOS);
+            else Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * 所有存活线程累计分配的内存 (byte)，包括分发线程，不支持时返回 -1
+     */
+    private static long allocatedBytes() {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threadMXBean) ||
+                !threadMXBean.isThreadAllocatedMemorySupported())
+            return -1;
+
+        long total = 0;
+        for (long bytes : threadMXBean.getThreadAllocatedBytes(threadMXBean.getAllThreadIds())) {
+            if (bytes > 0) total += bytes;
+        }
+        return total;
+    }
+
+    private record Result(ReplayPipeline pipeline, FakeDistributor distributor, long records, long replayNanos,
+                          long allocatedBytes, boolean drained) {
+        void print() {
+            long emitted = distributor.getReceived();
+            System.out.printf(Locale.ROOT, "Replayed: %d records in %.1f ms (%.0f records/s)%n",
+                    records, replayNanos / 1e6, records * 1e9 / Math.max(replayNanos, 1));
+            System.out.println("Emitted: " + emitted + " (lyric=" + distributor.getLyrics() +
+                    ", stop=" + distributor.getStops() + "), binder calls=" + distributor.getCalls() +
+                    (drained ? "" : ", NOT DRAINED"));
+            System.out.println("Suppressed: session=" + pipeline.getSessionStats().suppressed() +
+                    ", notification reentrant=" + pipeline.getNotificationDedupeStats().reentrant() +
+                    ", coalesced=" + pipeline.getDispatcherStats().coalesced() +
+                    ", dropped=" + pipeline.getDispatcherStats().dropped());
+            System.out.println("Notification filter: " + pipeline.getNotificationFilterStats());
+            System.out.println("Latency (hook -> distributor): " + distributor.getLatency());
+            System.out.println("Dispatcher: " + pipeline.getDispatcherStats());
+            System.out.println("Icon cache: " + pipeline.getIconCacheStats());
+            if (allocatedBytes < 0) {
+                System.out.println("Allocations: unsupported by this JVM");
+            } else {
+                System.out.printf(Locale.ROOT, "Allocations: %d bytes, %.1f bytes/record, %.1f bytes/emitted event%n",
+                        allocatedBytes, (double) allocatedBytes / Math.max(records, 1),
+                        (double) allocatedBytes / Math.max(emitted, 1));
+            }
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * This file is part of SuperLyric.
+
+ * SuperLyric is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HChenX
+ */
+package com.hchen.superlyric.meizu.replay;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.hchen.superlyric.meizu.dispatch.LyricDispatcher;
+import com.hchen.superlyric.meizu.dispatch.LyricPublisher;
+import com.hchen.superlyric.meizu.dispatch.LyricSession;
+import com.hchen.superlyric.meizu.helper.IconCache;
+import com.hchen.superlyric.meizu.helper.MetadataLyric;
+import com.hchen.superlyric.meizu.helper.NotificationDedupe;
+import com.hchen.superlyric.meizu.helper.NotificationFilter;
+import com.hchen.superlyric.meizu.helper.TickerPhrases;
+import com.hchen.superlyric.meizu.helper.TickerRouter;
+
+import java.util.Arrays;
+
+/**
+ * 离线复现 MeizuHelper 与 LyricRelease 的处理流程
+ * <p>
+ * 分类、去重、会话与分发队列使用与模块相同的实现和参数，
+ * 只有通知对象、小图标编码与 Binder 由本地替身代替。
+ *
+ * @author 焕晨HChen
+ */
+final class ReplayPipeline {
+    // 与 MeizuHelper 与 LyricRelease 中的参数保持一致
+    private static final long ICON_CACHE_MAX_BYTES = 256 * 1024;
+    private static final int DISPATCHER_CAPACITY = 64;
+    // 模拟的小图标 PNG 大小 (byte)
+    private static final int ICON_BYTES = 2 * 1024;
+    private final String packageName;
+    private final TickerPhrases phrases;
+    private final NotificationFilter notificationFilter = new NotificationFilter(16);
+    private final NotificationDedupe notificationDedupe = new NotificationDedupe();
+    private final IconCache iconCache = new IconCache(ICON_CACHE_MAX_BYTES);
+    private final LyricSession session = new LyricSession();
+    private final LyricDispatcher dispatcher;
+    private final LyricPublisher publisher;
+    private Object lastNotification;
+    // 回放在单线程上进行，当前记录的开始时间通过字段交给常驻的路由接收方
+    private long currentStartNanos;
+    private final TickerRouter.Target<ReplayTrace.Record> routeTarget = new TickerRouter.Target<>() {
+        @Override
+        public void onLyric(@NonNull String lyric, ReplayTrace.Record record) {
+            sendLyric(lyric, getBase64Icon(record.icon), currentStartNanos);
+        }
+
+        @Override
+        public void onStop(ReplayTrace.Record record) {
+            sendStop(currentStartNanos);
+        }
+    };
+    private CharSequence lastTicker;
+
+    ReplayPipeline(@NonNull String packageName, long coalesceMillis, @NonNull FakeDistributor distributor) {
+        this.packageName = packageName;
+        this.phrases = TickerPhrases.forPackage(packageName);
+        this.dispatcher = new LyricDispatcher("Replay-Dispatcher", DISPATCHER_CAPACITY,
+                LyricDispatcher.OverflowPolicy.DROP_OLDEST, distributor);
+        dispatcher.setCoalesceInterval(coalesceMillis);
+        this.publisher = new LyricPublisher(session, dispatcher);
+    }
+
+    /**
+     * 回放一条记录
+     */
+    void replay(@NonNull ReplayTrace.Record record) {
+        long start = System.nanoTime();
+        switch (record.type) {
+            case ReplayTrace.Record.TYPE_NOTIFY -> notify(record, start);
+            case ReplayTrace.Record.TYPE_METADATA ->
+                    sendLyric(MetadataLyric.fromMediaMetadata(record.key, record.value), null, start);
+            case ReplayTrace.Record.TYPE_QQLITE -> sendLyric(MetadataLyric.fromQQLite(record.value), null, start);
+            default -> throw new IllegalArgumentException("Unknown record type: " + record.type);
+        }
+    }
+
+    /**
+     * 对应 MeizuHelper 的通知 Hook
+     * <p>
+     * 嵌套调用时内层 Hook 收到的是同一个通知对象；重复发布时复用上一条通知对象与 tickerText。
+     */
+    private void notify(@NonNull ReplayTrace.Record record, long start) {
+        if (!record.repost || lastNotification == null) {
+            lastNotification = new Object();
+            lastTicker = record.ticker;
+        }
+        Object notification = lastNotification;
+        CharSequence ticker = lastTicker;
+        try {
+            if (!notificationDedupe.enter(notification)) return;
+
+            currentStartNanos = start;
+            TickerRouter.route(notificationFilter, phrases, record.tag, record.id, record.flags, ticker, record, routeTarget);
+            notificationFilter.recordCost(System.nanoTime() - start);
+
+            if (record.nested) {
+                try {
+                    if (notificationDedupe.enter(notification))
+                        throw new IllegalStateException("Nested notify was not deduplicated");
+                } finally {
+                    notificationDedupe.exit();
+                }
+            }
+        } finally {
+            notificationDedupe.exit();
+        }
+    }
+
+    @Nullable
+    private String getBase64Icon(int iconId) {
+        if (iconId == 0) return null;
+        return iconCache.get(IconCache.Key.ofResource(packageName, iconId), () -> {
+            char[] chars = new char[(ICON_BYTES + 2) / 3 * 4];
+            Arrays.fill(chars, (char) ('A' + Math.floorMod(iconId, 26)));
+            return new String(chars);
+        });
+    }
+
+    /**
+     * 对应 LyricRelease#sendLyric
+     */
+    private void sendLyric(@Nullable String lyric, @Nullable String base64Icon, long start) {
+        publisher.publishLyric(lyric, normalized -> new FakeDistributor.Payload(packageName, normalized, base64Icon, start));
+    }
+
+    /**
+     * 对应 LyricRelease#sendStop，当前应用的停止事件只会发送一次
+     */
+    private void sendStop(long start) {
+        publisher.publishStop(() -> new FakeDistributor.Payload(packageName, null, null, start));
+    }
+
+    /**
+     * 等待分发队列中的事件全部处理完成
+     *
+     * @return 超时前处理完成时返回 true
+     */
+    boolean drain(long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutMillis * 1_000_000L;
+        while (System.nanoTime() < deadline) {
+            LyricDispatcher.Stats stats = dispatcher.getStats();
+            if (stats.depth() == 0 && stats.delivered() + stats.buffered() + stats.failed() + stats.dropped() + stats.coalesced() >= stats.posted())
+                return true;
+            Thread.sleep(1);
+        }
+        return false;
+    }
+
+    @NonNull
+    NotificationFilter.Stats getNotificationFilterStats() {
+        return notificationFilter.getStats();
+    }
+
+    @NonNull
+    NotificationDedupe.Stats getNotificationDedupeStats() {
+        return notificationDedupe.getStats();
+    }
+
+    @NonNull
+    IconCache.Stats getIconCacheStats() {
+        return iconCache.getStats();
+    }
+
+    @NonNull
+    LyricSession.Stats getSessionStats() {
+        return session.getStats();
+    }
+
+    @NonNull
+    LyricDispatcher.Stats getDispatcherStats() {
+        return dispatcher.getStats();
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * This file is part of SuperLyric.
+
+ * SuperLyric is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HChenX
+ */
+package com.hchen.superlyric.meizu.replay;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 录制的 Hook 调用序列
+ * <p>
+ * 每行一个 JSON 对象，空行与 # 开头的行会被忽略：
+ * <pre>
+ * {"t":0,"type":"notify","id":10,"flags":50331648,"ticker":"歌词","icon":2131230720,"nested":true}
+ * {"t":800,"type":"metadata","key":"android.media.metadata.TITLE","value":"歌词"}
+ * {"t":1600,"type":"qqlite","value":"歌词"}
+ * </pre>
+ *
+ * @author 焕晨HChen
+ */
+public final class ReplayTrace {
+    private static final Gson gson = new Gson();
+    @NonNull
+    private final List<Record> records;
+
+    private ReplayTrace(@NonNull List<Record> records) {
+        this.records = Collections.unmodifiableList(records);
+    }
+
+    /**
+     * 一次 Hook 调用
+     */
+    public static final class Record {
+        public static final String TYPE_NOTIFY = "notify";
+        public static final String TYPE_METADATA = "metadata";
+        public static final String TYPE_QQLITE = "qqlite";
+
+        // 相对于序列开始的录制时间 (ms)
+        public long t;
+        public String type;
+        // NotificationManager#notify
+        @Nullable
+        public String tag;
+        public int id;
+        public int flags;
+        @Nullable
+        public String ticker;
+        // 小图标资源 id，0 表示没有图标
+        public int icon;
+        // 经过 NotificationManagerCompat 与 NotificationManager 两层 Hook
+        public boolean nested;
+        // 重复发布上一条通知对象
+        public boolean repost;
+        // MediaMetadataCompat.Builder#putString 与 updataMetaData
+        @Nullable
+        public String key;
+        @Nullable
+        public String value;
+    }
+
+    @NonNull
+    public static ReplayTrace load(@NonNull Path path) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            return parse(inputStream, path.toString());
+        }
+    }
+
+    @NonNull
+    public static ReplayTrace loadResource(@NonNull String name) throws IOException {
+        try (InputStream inputStream = ReplayTrace.class.getResourceAsStream(name)) {
+            if (inputStream == null) throw new IOException("Trace resource not found: " + name);
+            return parse(inputStream, name);
+        }
+    }
+
+    @NonNull
+    private static ReplayTrace parse(@NonNull InputStream inputStream, @NonNull String source) throws IOException {
+        ArrayList<Record> records = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+
+            Record record;
+            try {
+                record = gson.fromJson(line, Record.class);
+            } catch (JsonParseException e) {
+                throw new IOException(source + ":" + lineNumber + ": " + e.getMessage(), e);
+            }
+            if (record.type == null)
+                throw new IOException(source + ":" + lineNumber + ": Missing record type");
+            records.add(record);
+        }
+        if (records.isEmpty()) throw new IOException("Empty trace: " + source);
+        return new ReplayTrace(records);
+    }
+
+    @NonNull
+    public List<Record> getRecords() {
+        return records;
+    }
+
+    /**
+     * 录制时长 (ms)
+     */
+    public long getDurationMillis() {
+        return records.get(records.size() - 1).t - records.get(0).t;
+    }
+}
@@ -25,14 +25,31 @@ import java.lang.annotation.Target;
 
 /**
  * Hook 收集
+ * <p>
+ * Gradle 的 aggregating 增量注解处理要求注解至少保留到 class 文件。
  *
  * @author 焕晨HChen
  */
-@Retention(RetentionPolicy.SOURCE)
+@Retention(RetentionPolicy.CLASS)
 @Target(ElementType.TYPE)
 public @interface Collect {
+    // 主进程，即进程名与包名相同的进程
+    String MAIN_PROCESS = "";
+    // 名称中包含 play 的子进程，例如 :play、:QQPlayerService
+    String PLAYER_PROCESSES = ":*play*";
+    // 所有进程
+    String ALL_PROCESSES = "*";
+
     String targetPackage();
 
+    /**
+     * 需要安装 Hook 的进程，其余进程会跳过该 Hook 类
+     * <p>
+     * 以 : 开头的选择器表示目标应用的子进程，否则为完整进程名；空字符串表示主进程。
+     * 支持 * 通配符，匹配时忽略大小写。仅对 onLoadPackage 与 onApplication 阶段生效。
+     */
+    String[] targetProcess() default {MAIN_PROCESS, PLAYER_PROCESSES};
+
     boolean onLoadPackage() default true;
 
     boolean onZygote() default false;
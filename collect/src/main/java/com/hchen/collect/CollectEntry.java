@@ -0,0 +1,62 @@
+/*
+ * This file is part of SuperLyric.
+
+ * SuperLyric is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HChenX
+ */
+package com.hchen.collect;
+
+import java.util.function.Supplier;
+
+/**
+ * 注解处理器生成的 Hook 入口
+ *
+ * @param fullClassName Hook 类完整类名
+ * @param flags         Hook 阶段标记
+ * @param processes     需要安装 Hook 的进程选择器
+ * @param factory       直接构造 Hook 实例的工厂，不经过反射
+ * @author 焕晨HChen
+ */
+public record CollectEntry(String fullClassName, int flags, String[] processes, Supplier<?> factory) {
+    public static final int ON_LOAD_PACKAGE = 1;
+    public static final int ON_ZYGOTE = 1 << 1;
+    public static final int ON_APPLICATION = 1 << 2;
+
+    public boolean isOnLoadPackage() {
+        return (flags & ON_LOAD_PACKAGE) != 0;
+    }
+
+    public boolean isOnZygote() {
+        return (flags & ON_ZYGOTE) != 0;
+    }
+
+    public boolean isOnApplication() {
+        return (flags & ON_APPLICATION) != 0;
+    }
+
+    /**
+     * 当前进程是否需要安装该 Hook
+     */
+    public boolean isTargetProcess(String packageName, String processName) {
+        for (String selector : processes) {
+            if (ProcessSelector.matches(selector, packageName, processName)) return true;
+        }
+        return false;
+    }
+
+    public Object newInstance() {
+        return factory.get();
+    }
+}
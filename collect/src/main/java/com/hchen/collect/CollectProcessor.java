@@ -23,12 +23,11 @@ import com.google.auto.service.AutoService;
 import java.io.IOException;
 import java.io.Writer;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.function.BiConsumer;
-import java.util.function.Consumer;
-import java.util.stream.Collectors;
+import java.util.TreeMap;
 
 import javax.annotation.processing.AbstractProcessor;
 import javax.annotation.processing.Processor;
@@ -38,6 +37,7 @@ import javax.annotation.processing.SupportedSourceVersion;
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
 
 /**
  * 注解处理
@@ -48,189 +48,232 @@ import javax.lang.model.element.TypeElement;
 @SupportedAnnotationTypes("com.hchen.collect.Collect")
 @SupportedSourceVersion(SourceVersion.RELEASE_21)
 public class CollectProcessor extends AbstractProcessor {
-    boolean isProcessed = false;
+    // 生成文件的许可证头
+    private static final String LICENSE_HEADER = """
+            /*
+             * This file is part of SuperLyric.
+            
+             * SuperLyric is free software: you can redistribute it and/or modify
+             * it under the terms of the GNU General Public License as
+             * published by the Free Software Foundation, either version 3 of the
+             * License.
+            
+             * This program is distributed in the hope that it will be useful,
+             * but WITHOUT ANY WARRANTY; without even the implied warranty of
+             * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+             * GNU General Public License for more details.
+            
+             * You should have received a copy of the GNU General Public License
+             * along with this program. If not, see <https://www.gnu.org/licenses/>.
+             *
+             * Copyright (C) 2023-2025 HChenX
+             */
+            """;
+    // 按包名与类名排序，保证生成的代码与元素的遍历顺序和所在轮次无关
+    private final TreeMap<String, List<CollectCache>> collectMap = new TreeMap<>();
+    private final ArrayList<String> originatingClassNames = new ArrayList<>();
+    private int round = 0;
+    private boolean isWritten = false;
 
+    /**
+     * 汇总每一轮的 @Collect 类，包括其他处理器在之后轮次中生成的类，
+     * 在第一个没有新 @Collect 类出现的轮次生成 CollectMap。
+     * <p>
+     * 没有其他文件生成时 javac 会直接进入最后一轮，而最后一轮生成的源文件无法被 import，
+     * 因此发现新 @Collect 类的轮次会同时生成一个记录本轮来源的 CollectRound 类，保证之后还有一轮。
+     */
     @Override
     public boolean process(Set<? extends TypeElement> set, RoundEnvironment roundEnvironment) {
-        if (isProcessed) return true;
-        isProcessed = true;
-
-        HashMap<String, List<CollectCache>> collectMap = new HashMap<>();
-        roundEnvironment.getElementsAnnotatedWith(Collect.class).forEach(new Consumer<Element>() {
-            @Override
-            public void accept(Element element) {
-                String fullClassName = null;
-                if (element instanceof TypeElement typeElement) {
-                    fullClassName = typeElement.getQualifiedName().toString();
-                    if (fullClassName == null)
-                        throw new RuntimeException("E: Full class name is null!!");
-                } else
-                    throw new RuntimeException("E: element can't cast to TypeElement!!");
-
-                Collect collect = element.getAnnotation(Collect.class);
-                String targetPackage = collect.targetPackage();
-                boolean onLoadPackage = collect.onLoadPackage();
-                boolean onZygote = collect.onZygote();
-                boolean onApplication = collect.onApplication();
-
-                if (collectMap.get(targetPackage) == null) {
-                    ArrayList<CollectCache> collectCacheList = new ArrayList<>();
-                    collectCacheList.add(new CollectCache(fullClassName, onLoadPackage, onZygote, onApplication));
-                    collectMap.put(targetPackage, collectCacheList);
-                } else {
-                    ArrayList<CollectCache> collectCacheList = (ArrayList<CollectCache>) collectMap.get(targetPackage);
-                    collectCacheList.add(new CollectCache(fullClassName, onLoadPackage, onZygote, onApplication));
-                }
+        round++;
+        Set<? extends Element> elements = roundEnvironment.getElementsAnnotatedWith(Collect.class);
+        if (isWritten) {
+            for (Element element : elements) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "E: @Collect class appeared after CollectMap was generated!!", element);
+            }
+            return true;
+        }
+
+        if (!elements.isEmpty()) {
+            ArrayList<String> roundClassNames = new ArrayList<>();
+            for (Element element : elements) {
+                roundClassNames.add(collect(element));
             }
-        });
-
-        try (Writer writer = processingEnv.getFiler().createSourceFile("com.hchen.collect.CollectMap").openWriter()) {
-            writer.write("""
-                    /*
-                     * This file is part of SuperLyric.
-                    
-                     * SuperLyric is free software: you can redistribute it and/or modify
-                     * it under the terms of the GNU General Public License as
-                     * published by the Free Software Foundation, either version 3 of the
-                     * License.
-                    
-                     * This program is distributed in the hope that it will be useful,
-                     * but WITHOUT ANY WARRANTY; without even the implied warranty of
-                     * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
-                     * GNU General Public License for more details.
-                    
-                     * You should have received a copy of the GNU General Public License
-                     * along with this program. If not, see <https://www.gnu.org/licenses/>.
-                     *
-                     * Copyright (C) 2023-2025 HChenX
-                     */
-                    package com.hchen.collect;
-                    
-                    import java.util.ArrayList;
-                    import java.util.Arrays;
-                    import java.util.HashMap;
-                    import java.util.List;
-                    import java.util.Set;
-                    import java.util.HashSet;
-                    
-                    /**
-                     * 注解处理器自动生成的 Map 图
-                     *
-                     * @author 焕晨HChen
-                     */
-                    public class CollectMap {
-                    
-                        public static HashMap<String, List<String>> getOnLoadPackageMap() {
-                            HashMap<String, List<String>> collectOnLoadPackageMap = new HashMap<>();
-                    """);
-            collectMap.forEach(new BiConsumer<String, List<CollectCache>>() {
-                @Override
-                public void accept(String targetPackage, List<CollectCache> collectCaches) {
-                    ArrayList<String> onLoadPackageList = collectCaches.stream()
-                            .filter(collectCache -> collectCache.onLoadPackage)
-                            .map(collectCache -> collectCache.fullClassName)
-                            .collect(Collectors.toCollection(ArrayList::new));
-                    try {
-                        writer.write("        ");
-                        writer.write("collectOnLoadPackageMap.put(\"" + targetPackage + "\", toList(\"" + onLoadPackageList + "\"));\n");
-                    } catch (IOException e) {
-                        e.printStackTrace();
+            originatingClassNames.addAll(roundClassNames);
+            writeSource("com.hchen.collect.CollectRound" + round, elements.toArray(new Element[0]),
+                    writer -> writeRound(writer, roundClassNames));
+            return true;
+        }
+
+        collectMap.values().forEach(collectCaches -> collectCaches.sort(Comparator.comparing(CollectCache::fullClassName)));
+
+        // 元素不应跨轮次持有，按类名重新获取所有来源
+        ArrayList<Element> originatingElements = new ArrayList<>();
+        for (String fullClassName : originatingClassNames) {
+            TypeElement typeElement = processingEnv.getElementUtils().getTypeElement(fullClassName);
+            if (typeElement != null) originatingElements.add(typeElement);
+        }
+
+        // CollectMap 汇总了所有 @Collect 类，需要声明全部来源，以便增量编译时正确失效
+        writeSource("com.hchen.collect.CollectMap", originatingElements.toArray(new Element[0]), this::writeCollectMap);
+        isWritten = true;
+        return true;
+    }
+
+    /**
+     * 记录一个 @Collect 类
+     *
+     * @return 类的全名
+     */
+    private String collect(Element element) {
+        String fullClassName = null;
+        if (element instanceof TypeElement typeElement) {
+            fullClassName = typeElement.getQualifiedName().toString();
+            if (fullClassName == null)
+                throw new RuntimeException("E: Full class name is null!!");
+        } else
+            throw new RuntimeException("E: element can't cast to TypeElement!!");
+
+        Collect collect = element.getAnnotation(Collect.class);
+        String targetPackage = collect.targetPackage();
+        boolean onLoadPackage = collect.onLoadPackage();
+        boolean onZygote = collect.onZygote();
+        boolean onApplication = collect.onApplication();
+        String[] processes = collect.targetProcess();
+        for (String process : processes) {
+            String error = ProcessSelector.validate(process);
+            if (error != null)
+                throw new RuntimeException("E: " + error + " in " + fullClassName + "!!");
+        }
+
+        if (collectMap.get(targetPackage) == null) {
+            ArrayList<CollectCache> collectCacheList = new ArrayList<>();
+            collectCacheList.add(new CollectCache(fullClassName, onLoadPackage, onZygote, onApplication, processes));
+            collectMap.put(targetPackage, collectCacheList);
+        } else {
+            ArrayList<CollectCache> collectCacheList = (ArrayList<CollectCache>) collectMap.get(targetPackage);
+            collectCacheList.add(new CollectCache(fullClassName, onLoadPackage, onZygote, onApplication, processes));
+        }
+        return fullClassName;
+    }
+
+    private void writeSource(String name, Element[] originatingElements, SourceWriter sourceWriter) {
+        try (Writer writer = processingEnv.getFiler().createSourceFile(name, originatingElements).openWriter()) {
+            sourceWriter.write(writer);
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "E: Failed to generate " + name + ": " + e);
+        }
+    }
+
+    private void writeRound(Writer writer, List<String> classNames) throws IOException {
+        writer.write(LICENSE_HEADER);
+        writer.write("package com.hchen.collect;\n\n");
+        writer.write("/**\n");
+        writer.write(" * 注解处理第 " + round + " 轮发现的 @Collect 类，只用于记录来源，运行时不会使用\n");
+        writer.write(" *\n");
+        writer.write(" * @author 焕晨HChen\n");
+        writer.write(" */\n");
+        writer.write("final class CollectRound" + round + " {\n");
+        writer.write("    static final String[] CLASSES = new String[]{\n");
+        for (String className : classNames) {
+            writer.write("            \"" + className + "\",\n");
+        }
+        writer.write("    };\n\n");
+        writer.write("    private CollectRound" + round + "() {\n");
+        writer.write("    }\n");
+        writer.write("}\n");
+    }
+
+    private void writeCollectMap(Writer writer) throws IOException {
+        writer.write(LICENSE_HEADER);
+        writer.write("""
+                package com.hchen.collect;
+                
+                /**
+                 * 注解处理器自动生成的 Hook 分发表
+                 * <p>
+                 * 按包名直接构造 Hook 实例，启动时不需要解析字符串，也不需要反射。
+                 *
+                 * @author 焕晨HChen
+                 */
+                public final class CollectMap {
+                    public static final int ON_LOAD_PACKAGE = CollectEntry.ON_LOAD_PACKAGE;
+                    public static final int ON_ZYGOTE = CollectEntry.ON_ZYGOTE;
+                    public static final int ON_APPLICATION = CollectEntry.ON_APPLICATION;
+                    private static final CollectEntry[] EMPTY = new CollectEntry[0];
+                
+                    private CollectMap() {
                     }
-                }
-            });
-            writer.write("""
-                            return collectOnLoadPackageMap;
+                
+                    public static boolean isTargetPackage(String packageName) {
+                        switch (packageName) {
+                """);
+        for (String targetPackage : collectMap.keySet()) {
+            writer.write("            case \"" + targetPackage + "\":\n");
+        }
+        writer.write("""
+                                return true;
+                            default:
+                                return false;
                         }
-                    
-                        public static HashMap<String, List<String>> getOnZygoteList() {
-                            HashMap<String, List<String>> collectOnZygoteMap = new HashMap<>();
-                    """);
-            collectMap.forEach(new BiConsumer<String, List<CollectCache>>() {
-                @Override
-                public void accept(String targetPackage, List<CollectCache> collectCaches) {
-                    ArrayList<String> onZygoteList = collectCaches.stream()
-                            .filter(collectCache -> collectCache.onZygote)
-                            .map(collectCache -> collectCache.fullClassName)
-                            .collect(Collectors.toCollection(ArrayList::new));
-                    try {
-                        writer.write("        ");
-                        writer.write("collectOnZygoteMap.put(\"" + targetPackage + "\", toList(\"" + onZygoteList + "\"));\n");
-                    } catch (IOException e) {
-                        e.printStackTrace();
                     }
-                }
-            });
-            writer.write("""
-                            return collectOnZygoteMap;
+                
+                    public static CollectEntry[] getEntries(String packageName) {
+                        switch (packageName) {
+                """);
+        for (Map.Entry<String, List<CollectCache>> entry : collectMap.entrySet()) {
+            writer.write("            case \"" + entry.getKey() + "\":\n");
+            writer.write("                return new CollectEntry[]{\n");
+            for (CollectCache collectCache : entry.getValue()) {
+                writer.write("                        new CollectEntry(\"" + collectCache.fullClassName + "\", " +
+                        toFlags(collectCache) + ", " + toProcesses(collectCache) + ", " +
+                        collectCache.fullClassName + "::new),\n");
+            }
+            writer.write("                };\n");
+        }
+        writer.write("""
+                            default:
+                                return EMPTY;
                         }
-                    
-                        public static HashMap<String, List<String>> getOnApplicationMap() {
-                            HashMap<String, List<String>> collectOnApplicationMap = new HashMap<>();
-                    """);
-            collectMap.forEach(new BiConsumer<String, List<CollectCache>>() {
-                @Override
-                public void accept(String targetPackage, List<CollectCache> collectCaches) {
-                    ArrayList<String> onApplicationList = collectCaches.stream()
-                            .filter(collectCache -> collectCache.onApplication)
-                            .map(collectCache -> collectCache.fullClassName)
-                            .collect(Collectors.toCollection(ArrayList::new));
-                    try {
-                        writer.write("        ");
-                        writer.write("collectOnApplicationMap.put(\"" + targetPackage + "\", toList(\"" + onApplicationList + "\"));\n");
-                    } catch (IOException e) {
-                        e.printStackTrace();
                     }
-                }
-            });
-
-            writer.write("""
-                            return collectOnApplicationMap;
-                        }
-                    
-                        public static Set<String> getTargetPackages() {
-                            HashSet<String> set = new HashSet();
-                    """);
-            collectMap.keySet().forEach(new Consumer<String>() {
-                @Override
-                public void accept(String targetPackage) {
-                    try {
-                        writer.write("        ");
-                        writer.write("set.add(\"" + targetPackage + "\");\n");
-                    } catch (IOException e) {
-                        e.printStackTrace();
+                
+                    public static String[] getZygotePackages() {
+                        return new String[]{
+                """);
+        for (Map.Entry<String, List<CollectCache>> entry : collectMap.entrySet()) {
+            if (entry.getValue().stream().anyMatch(collectCache -> collectCache.onZygote)) {
+                writer.write("                \"" + entry.getKey() + "\",\n");
+            }
+        }
+        writer.write("""
+                        };
                     }
                 }
-            });
+                """);
+    }
 
-            writer.write("""
-                            return set;
-                        }
-                    
-                        private static List<String> toList(String fullClassNames) {
-                            String[] fullClassNameArray = fullClassNames.replace("[", "")
-                                        .replace("]", "")
-                                        .replace(" ", "")
-                                        .split(",");
-                    
-                            if (fullClassNameArray.length == 0) return new ArrayList<>();
-                            fullClassNameArray =  Arrays.stream(fullClassNameArray).filter(s -> !s.isEmpty()).toArray(String[]::new);
-                            return new ArrayList<>(List.of(fullClassNameArray));
-                        }
-                    
-                        private static List<String> getMapNotNull(HashMap<String, List<String>> map, String key) {
-                            List<String> value = map.get(key);
-                            return value == null ? new ArrayList<String>() : value;
-                        }
-                    }
-                    """);
-        } catch (IOException e) {
-            e.printStackTrace();
+    private static String toFlags(CollectCache collectCache) {
+        ArrayList<String> flags = new ArrayList<>();
+        if (collectCache.onLoadPackage) flags.add("ON_LOAD_PACKAGE");
+        if (collectCache.onZygote) flags.add("ON_ZYGOTE");
+        if (collectCache.onApplication) flags.add("ON_APPLICATION");
+        return flags.isEmpty() ? "0" : String.join(" | ", flags);
+    }
+
+    private static String toProcesses(CollectCache collectCache) {
+        ArrayList<String> processes = new ArrayList<>();
+        for (String process : collectCache.processes) {
+            processes.add("\"" + process + "\"");
         }
+        return "new String[]{" + String.join(", ", processes) + "}";
+    }
 
-        return true;
+    private interface SourceWriter {
+        void write(Writer writer) throws IOException;
     }
 
     private record CollectCache(String fullClassName, boolean onLoadPackage, boolean onZygote,
-                                boolean onApplication) {
+                                boolean onApplication, String[] processes) {
     }
 }
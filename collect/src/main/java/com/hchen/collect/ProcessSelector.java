@@ -0,0 +1,93 @@
+/*
+ * This file is part of SuperLyric.
+
+ * SuperLyric is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HChenX
+ */
+package com.hchen.collect;
+
+/**
+ * 进程选择器匹配
+ * <p>
+ * 选择器格式见 {@link Collect#targetProcess()}。
+ *
+ * @author 焕晨HChen
+ */
+public final class ProcessSelector {
+    private ProcessSelector() {
+    }
+
+    /**
+     * 判断进程是否与选择器匹配
+     *
+     * @param selector    进程选择器
+     * @param packageName 目标应用包名
+     * @param processName 当前进程名，为 null 时视为主进程
+     */
+    public static boolean matches(String selector, String packageName, String processName) {
+        if (processName == null) processName = packageName;
+        if (selector.isEmpty()) return processName.equals(packageName);
+        if (selector.charAt(0) != ':') return matchesGlob(selector, 0, processName, 0);
+
+        return processName.startsWith(packageName) &&
+                matchesGlob(selector, 0, processName, packageName.length());
+    }
+
+    /**
+     * 校验选择器格式
+     *
+     * @return 格式错误时返回原因，否则返回 null
+     */
+    public static String validate(String selector) {
+        if (selector == null) return "Process selector is null";
+        for (int i = 0; i < selector.length(); i++) {
+            char c = selector.charAt(i);
+            if (Character.isLetterOrDigit(c) || c == '.' || c == '_' || c == '*') continue;
+            if (c == ':' && selector.indexOf(':', i + 1) == -1) continue;
+            return "Illegal character '" + c + "' in process selector: " + selector;
+        }
+        if (selector.equals(":")) return "Empty sub process name in process selector: " + selector;
+        return null;
+    }
+
+    /**
+     * 忽略大小写的通配符匹配，* 可以匹配任意长度的字符
+     */
+    private static boolean matchesGlob(String pattern, int patternIndex, String text, int textIndex) {
+        int starIndex = -1;
+        int starTextIndex = 0;
+        while (textIndex < text.length()) {
+            if (patternIndex < pattern.length() && pattern.charAt(patternIndex) == '*') {
+                starIndex = patternIndex++;
+                starTextIndex = textIndex;
+            } else if (patternIndex < pattern.length() && equalsIgnoreCase(pattern.charAt(patternIndex), text.charAt(textIndex))) {
+                patternIndex++;
+                textIndex++;
+            } else if (starIndex != -1) {
+                // 回溯到上一个 *，让它多匹配一个字符
+                patternIndex = starIndex + 1;
+                textIndex = ++starTextIndex;
+            } else {
+                return false;
+            }
+        }
+        while (patternIndex < pattern.length() && pattern.charAt(patternIndex) == '*') patternIndex++;
+        return patternIndex == pattern.length();
+    }
+
+    private static boolean equalsIgnoreCase(char a, char b) {
+        return a == b || Character.toLowerCase(a) == Character.toLowerCase(b);
+    }
+}
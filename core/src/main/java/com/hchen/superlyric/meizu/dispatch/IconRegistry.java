@@ -0,0 +1,140 @@
+/*
+ * This file is part of SuperLyric.
+
+ * SuperLyric is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HChenX
+ */
+package com.hchen.superlyric.meizu.dispatch;
+
+import androidx.annotation.NonNull;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * 图标句柄注册表
+ * <p>
+ * 记录已经发送给接收端的图标及其句柄，图标内容变化时会分配新的句柄。
+ * 新图标先暂存，发送成功后通过 {@link #commit()} 生效，发送失败时通过 {@link #rollback()} 撤销。
+ * <p>
+ * 最多保留 maxEntries 个句柄，超出时淘汰最久未使用的句柄。被淘汰的句柄需要在同一批次中
+ * 通知接收端释放，因此接收端同时持有的图标数同样不会超过这个上限。
+ * 句柄只在当前连接内有效，连接重建时会创建新的注册表。
+ * <p>
+ * 只在分发线程中使用，非线程安全。
+ *
+ * @author 焕晨HChen
+ */
+public final class IconRegistry {
+    // 句柄 0 表示无图标
+    public static final int NO_HANDLE = 0;
+    private static final int[] EMPTY = new int[0];
+    private final int maxEntries;
+    private final LinkedHashMap<String, Integer> handles = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, Integer> staged = new LinkedHashMap<>();
+    private int nextHandle = 1;
+    private long registrations;
+    private long references;
+    private long evictions;
+
+    public IconRegistry(int maxEntries) {
+        if (maxEntries <= 0) throw new IllegalArgumentException("Max entries must be positive: " + maxEntries);
+
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * 查找已注册或已暂存图标的句柄
+     *
+     * @return 未注册时返回 {@link #NO_HANDLE}
+     */
+    public int lookup(@NonNull String base64Icon) {
+        Integer handle = handles.get(base64Icon);
+        if (handle == null) handle = staged.get(base64Icon);
+        if (handle == null) return NO_HANDLE;
+
+        references++;
+        return handle;
+    }
+
+    /**
+     * 为新图标分配句柄并暂存，调用方需要在同一批次中把图标发送给接收端
+     */
+    public int stage(@NonNull String base64Icon) {
+        int handle = nextHandle++;
+        if (nextHandle == NO_HANDLE) nextHandle = 1;
+
+        staged.put(base64Icon, handle);
+        return handle;
+    }
+
+    /**
+     * 提交暂存的图标后将被淘汰的句柄，按淘汰顺序排列
+     * <p>
+     * 调用方需要在发送暂存图标的同一批次末尾通知接收端释放这些句柄。
+     */
+    @NonNull
+    public int[] pendingEvictions() {
+        int count = handles.size() + staged.size() - maxEntries;
+        if (count <= 0) return EMPTY;
+
+        int[] evicted = new int[count];
+        int i = 0;
+        for (Integer handle : handles.values()) {
+            if (i == count) return evicted;
+            evicted[i++] = handle;
+        }
+        for (Integer handle : staged.values()) {
+            if (i == count) return evicted;
+            evicted[i++] = handle;
+        }
+        return evicted;
+    }
+
+    /**
+     * 批次发送成功后提交暂存的图标，并淘汰超出上限的句柄
+     */
+    public void commit() {
+        registrations += staged.size();
+        handles.putAll(staged);
+        staged.clear();
+
+        Iterator<Integer> iterator = handles.values().iterator();
+        while (handles.size() > maxEntries) {
+            iterator.next();
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * 批次发送失败时撤销暂存的图标
+     */
+    public void rollback() {
+        staged.clear();
+    }
+
+    public long getRegistrations() {
+        return registrations;
+    }
+
+    public long getReferences() {
+        return references;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+}
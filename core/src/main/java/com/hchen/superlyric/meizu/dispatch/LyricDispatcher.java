@@ -0,0 +1,297 @@
+/*
+ * This file is part of SuperLyric.
+
+ * SuperLyric is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HChenX
+ */
+package com.hchen.superlyric.meizu.dispatch;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 歌词分发队列
+ * <p>
+ * Hook 线程只负责入队，由单独的工作线程按顺序取出并执行 Binder 调用，
+ * 避免跨进程调用阻塞音乐软件的播放器与通知线程。已就绪的连续事件会被合成一批一起交给 {@link Sink}。
+ * <p>
+ * 设置合并间隔后进入合并模式：间隔内被新歌词覆盖的旧歌词与旧状态会直接丢弃，
+ * 只有最新的歌词与最新的播放状态会被送达。合并只作用于当前应用会话发布的事件，
+ * 代其他应用发送的停止事件总会按原样送达。
+ * <p>
+ * 在 Hook 尚未安装完成时可以暂时挂起分发，事件会在队列中缓存到恢复或超时为止。
+ *
+ * @author 焕晨HChen
+ */
+public final class LyricDispatcher {
+    private static final int MAX_BATCH_SIZE = 16;
+    private final String name;
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final Sink sink;
+    private final ArrayDeque<LyricEvent> queue;
+    private final Object lock = new Object();
+    private Thread worker;
+    private volatile long coalesceIntervalNanos;
+    private long lastLyricDeliverNanos;
+    private int holdCount;
+    private long holdDeadlineNanos;
+
+    private final AtomicLong posted = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong buffered = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong queuedNanos = new AtomicLong();
+    private final AtomicLong maxQueuedNanos = new AtomicLong();
+    private volatile int maxDepth;
+
+    /**
+     * 队列已满时的处理策略
+     */
+    public enum OverflowPolicy {
+        // 丢弃最早入队的事件，保证最新的歌词能被送达
+        DROP_OLDEST,
+        // 丢弃当前准备入队的事件
+        DROP_NEWEST
+    }
+
+    /**
+     * 事件的最终消费者，运行在分发线程
+     */
+    public interface Sink {
+        /**
+         * @param events 按入队顺序排列的一批事件
+         * @return 事件是否已送达，由 Sink 暂存等待稍后补发时返回 false
+         */
+        boolean deliver(@NonNull List<LyricEvent> events) throws Exception;
+    }
+
+    public LyricDispatcher(@NonNull String name, int capacity, @NonNull OverflowPolicy overflowPolicy, @NonNull Sink sink) {
+        if (capacity <= 0) throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+
+        this.name = name;
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.sink = sink;
+        this.queue = new ArrayDeque<>(capacity);
+    }
+
+    /**
+     * 设置歌词合并间隔，小于等于 0 时关闭合并模式
+     *
+     * @param millis 两句歌词之间的最小发送间隔 (ms)
+     */
+    public void setCoalesceInterval(long millis) {
+        coalesceIntervalNanos = Math.max(0, millis) * 1_000_000L;
+        synchronized (lock) {
+            lock.notify();
+        }
+    }
+
+    /**
+     * 暂时挂起分发，事件会在队列中缓存，直到 {@link #release()} 或超时
+     *
+     * @param timeoutMillis 最长挂起时长 (ms)
+     */
+    public void hold(long timeoutMillis) {
+        synchronized (lock) {
+            holdCount++;
+            holdDeadlineNanos = Math.max(holdDeadlineNanos, System.nanoTime() + timeoutMillis * 1_000_000L);
+        }
+    }
+
+    /**
+     * 解除一次挂起，所有挂起都解除后恢复分发
+     */
+    public void release() {
+        synchronized (lock) {
+            if (holdCount > 0) holdCount--;
+            lock.notify();
+        }
+    }
+
+    /**
+     * 将事件加入分发队列
+     *
+     * @return 事件是否成功入队
+     */
+    public boolean post(@NonNull LyricEvent event) {
+        synchronized (lock) {
+            ensureWorker();
+            if (coalesceIntervalNanos > 0) coalesce(event);
+            if (queue.size() >= capacity) {
+                dropped.incrementAndGet();
+                if (overflowPolicy == OverflowPolicy.DROP_NEWEST) return false;
+                queue.pollFirst();
+            }
+
+            event.enqueueTimeNanos = System.nanoTime();
+            queue.offerLast(event);
+            posted.incrementAndGet();
+            if (queue.size() > maxDepth) maxDepth = queue.size();
+            lock.notify();
+        }
+        return true;
+    }
+
+    /**
+     * 当前队列深度
+     */
+    public int depth() {
+        synchronized (lock) {
+            return queue.size();
+        }
+    }
+
+    @NonNull
+    public Stats getStats() {
+        return new Stats(
+                depth(),
+                maxDepth,
+                posted.get(),
+                delivered.get(),
+                buffered.get(),
+                batches.get(),
+                dropped.get(),
+                failed.get(),
+                coalesced.get(),
+                queuedNanos.get(),
+                maxQueuedNanos.get()
+        );
+    }
+
+    /**
+     * 丢弃队列中已被新事件覆盖的事件
+     * <p>
+     * 新歌词会覆盖尚未发送的歌词与暂停状态，新的暂停状态只覆盖尚未发送的暂停状态，
+     * 两者都只作用于当前应用会话发布的事件。
+     */
+    private void coalesce(@NonNull LyricEvent event) {
+        if (!event.owned || event.kind == LyricEvent.Kind.DATA) return;
+
+        queue.removeIf(pending -> {
+            boolean superseded = pending.owned && (pending.kind == LyricEvent.Kind.STOP ||
+                    (event.kind == LyricEvent.Kind.LYRIC && pending.kind == LyricEvent.Kind.LYRIC));
+            if (superseded) coalesced.incrementAndGet();
+            return superseded;
+        });
+    }
+
+    private void ensureWorker() {
+        if (worker != null) return;
+
+        worker = new Thread(this::loop, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void loop() {
+        ArrayList<LyricEvent> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        while (true) {
+            synchronized (lock) {
+                while (true) {
+                    long waitNanos = queue.isEmpty() ? -1 : Math.max(remainingHold(), remainingInterval(queue.peekFirst()));
+                    if (waitNanos == 0) break;
+                    try {
+                        if (waitNanos < 0) lock.wait();
+                        else lock.wait(waitNanos / 1_000_000L, (int) (waitNanos % 1_000_000L));
+                    } catch (InterruptedException ignore) {
+                    }
+                }
+
+                // 取出所有已就绪的事件，合并模式下下一句歌词需要等待间隔，因此会在此截断
+                do {
+                    LyricEvent event = queue.pollFirst();
+                    if (event.kind == LyricEvent.Kind.LYRIC) lastLyricDeliverNanos = System.nanoTime();
+                    batch.add(event);
+                } while (!queue.isEmpty() && batch.size() < MAX_BATCH_SIZE && remainingInterval(queue.peekFirst()) == 0);
+            }
+
+            long now = System.nanoTime();
+            for (LyricEvent event : batch) {
+                long waited = now - event.enqueueTimeNanos;
+                queuedNanos.addAndGet(waited);
+                maxQueuedNanos.accumulateAndGet(waited, Math::max);
+            }
+
+            try {
+                if (sink.deliver(batch)) {
+                    delivered.addAndGet(batch.size());
+                    batches.incrementAndGet();
+                } else {
+                    buffered.addAndGet(batch.size());
+                }
+            } catch (Throwable ignore) {
+                // Sink 自行负责记录错误，这里只保证分发线程不会退出
+                failed.addAndGet(batch.size());
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * 距离挂起超时还需等待的时长 (ns)，超时后自动解除所有挂起
+     */
+    private long remainingHold() {
+        if (holdCount == 0) return 0;
+
+        long remaining = holdDeadlineNanos - System.nanoTime();
+        if (remaining > 0) return remaining;
+
+        holdCount = 0;
+        return 0;
+    }
+
+    /**
+     * 合并模式下距离下一句歌词允许发送还需等待的时长 (ns)
+     */
+    private long remainingInterval(@NonNull LyricEvent head) {
+        long interval = coalesceIntervalNanos;
+        if (interval <= 0 || head.kind != LyricEvent.Kind.LYRIC || lastLyricDeliverNanos == 0) return 0;
+
+        long remaining = lastLyricDeliverNanos + interval - System.nanoTime();
+        return Math.max(0, remaining);
+    }
+
+    /**
+     * 分发队列统计快照
+     *
+     * @param depth          当前队列深度
+     * @param maxDepth       历史最大队列深度
+     * @param posted         入队事件数
+     * @param delivered      成功分发的事件数
+     * @param buffered       由 Sink 暂存等待补发的事件数
+     * @param batches        成功分发的批次数
+     * @param dropped        因队列已满被丢弃的事件数
+     * @param failed         分发失败的事件数
+     * @param coalesced      合并模式下被新事件覆盖而丢弃的事件数
+     * @param queuedNanos    事件在队列中等待的总时长 (ns)
+     * @param maxQueuedNanos 事件在队列中等待的最大时长 (ns)
+     */
+    public record Stats(int depth, int maxDepth, long posted, long delivered, long buffered, long batches, long dropped,
+                        long failed, long coalesced, long queuedNanos, long maxQueuedNanos) {
+        public long averageQueuedNanos() {
+            long count = delivered + buffered + failed;
+            return count == 0 ? 0 : queuedNanos / count;
+        }
+    }
+}
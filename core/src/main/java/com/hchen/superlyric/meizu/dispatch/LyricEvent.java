@@ -0,0 +1,65 @@
+/*
+ * This file is part of SuperLyric.
+
+ * SuperLyric is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HChenX
+ */
+package com.hchen.superlyric.meizu.dispatch;
+
+import androidx.annotation.NonNull;
+
+/**
+ * 分发队列中的事件
+ *
+ * @author 焕晨HChen
+ */
+public final class LyricEvent {
+    @NonNull
+    public final Kind kind;
+    @NonNull
+    public final Object payload;
+    // 是否由当前应用的会话发布，合并模式下只有这类事件会被新事件覆盖
+    public final boolean owned;
+    long enqueueTimeNanos;
+
+    public enum Kind {
+        // 歌词
+        LYRIC,
+        // 播放暂停
+        STOP,
+        // 自定义数据包
+        DATA
+    }
+
+    public LyricEvent(@NonNull Kind kind, @NonNull Object payload) {
+        this(kind, payload, false);
+    }
+
+    public LyricEvent(@NonNull Kind kind, @NonNull Object payload, boolean owned) {
+        this.kind = kind;
+        this.payload = payload;
+        this.owned = owned;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "LyricEvent{" +
+                "kind=" + kind +
+                ", payload=" + payload +
+                ", owned=" + owned +
+                '}';
+    }
+}
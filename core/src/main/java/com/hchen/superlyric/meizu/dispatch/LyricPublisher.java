@@ -0,0 +1,89 @@
+/*
+ * This file is part of SuperLyric.
+
+ * SuperLyric is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HChenX
+ */
+package com.hchen.superlyric.meizu.dispatch;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 按会话状态发布歌词事件
+ * <p>
+ * 会话状态变化与事件入队在同一把锁内完成，分发队列中事件的顺序与会话状态变化的顺序一致，
+ * 最后送达的事件总是对应会话的最终状态。
+ *
+ * @author 焕晨HChen
+ */
+public final class LyricPublisher {
+    private final LyricSession session;
+    private final LyricDispatcher dispatcher;
+    private final Object lock = new Object();
+
+    public LyricPublisher(@NonNull LyricSession session, @NonNull LyricDispatcher dispatcher) {
+        this.session = session;
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * 发布一句原始歌词
+     *
+     * @param payloadFactory 根据去除首尾空白后的歌词创建事件数据
+     * @return 已发布时返回去除首尾空白后的歌词，否则返回 null
+     */
+    @Nullable
+    public String publishLyric(@Nullable String lyric, @NonNull Function<String, Object> payloadFactory) {
+        synchronized (lock) {
+            lyric = session.acceptLyric(lyric);
+            if (lyric == null) return null;
+
+            dispatcher.post(new LyricEvent(LyricEvent.Kind.LYRIC, payloadFactory.apply(lyric), true));
+            return lyric;
+        }
+    }
+
+    /**
+     * 发布暂停，仅在播放中有效
+     *
+     * @return 已发布时返回 true
+     */
+    public boolean publishPause(@NonNull Supplier<Object> payloadFactory) {
+        synchronized (lock) {
+            if (!session.onPause()) return false;
+
+            dispatcher.post(new LyricEvent(LyricEvent.Kind.STOP, payloadFactory.get(), true));
+            return true;
+        }
+    }
+
+    /**
+     * 发布停止，直到下一句歌词到来前只会发布一次
+     *
+     * @return 已发布时返回 true
+     */
+    public boolean publishStop(@NonNull Supplier<Object> payloadFactory) {
+        synchronized (lock) {
+            if (!session.onStop()) return false;
+
+            dispatcher.post(new LyricEvent(LyricEvent.Kind.STOP, payloadFactory.get(), true));
+            return true;
+        }
+    }
+}
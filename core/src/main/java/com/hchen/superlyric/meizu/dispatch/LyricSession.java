@@ -0,0 +1,159 @@
+/*
+ * This file is part of SuperLyric.
+
+ * SuperLyric is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HChenX
+ */
+package com.hchen.superlyric.meizu.dispatch;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Objects;
+
+/**
+ * 歌词会话状态机
+ * <p>
+ * 通知、MediaSession 与超时检测会在不同线程上报歌词与暂停：
+ * <ul>
+ *     <li>同一句歌词在播放中重复上报时不再发送；</li>
+ *     <li>暂停与停止只在状态真正变化时发送一次；</li>
+ *     <li>暂停或停止后的任意歌词 (包括之前的同一句) 都会重新进入播放状态。</li>
+ * </ul>
+ * 所有方法的返回值表示调用方是否需要向接收端发送对应事件。
+ * <p>
+ * 状态变化方法不是线程安全的，需要由调用方串行调用，例如 {@link LyricPublisher} 在同一把锁内完成状态变化与入队；
+ * 查询方法可以在任意线程调用，用于统计与诊断。
+ *
+ * @author 焕晨HChen
+ */
+public final class LyricSession {
+    // 字段只由串行的调用方写入，volatile 仅用于其他线程读取；先写歌词再写状态，读取到新状态时也能读取到对应的歌词
+    private volatile State state = State.IDLE;
+    private volatile String lyric;
+    private volatile long transitions;
+    private volatile long suppressed;
+
+    public enum State {
+        IDLE,
+        PLAYING,
+        PAUSED,
+        STOPPED
+    }
+
+    /**
+     * 上报一句歌词
+     *
+     * @return 需要发送时返回 true
+     */
+    public boolean onLyric(@NonNull String lyric) {
+        if (state == State.PLAYING && Objects.equals(this.lyric, lyric)) {
+            suppressed++;
+            return false;
+        }
+        transition(State.PLAYING, lyric);
+        return true;
+    }
+
+    /**
+     * 规范化并上报一句原始歌词
+     *
+     * @return 需要发送时返回去除首尾空白后的歌词，否则返回 null
+     */
+    @Nullable
+    public String acceptLyric(@Nullable String lyric) {
+        if (lyric == null) return null;
+        lyric = lyric.trim();
+        if (lyric.isEmpty()) return null;
+        return onLyric(lyric) ? lyric : null;
+    }
+
+    /**
+     * 上报暂停，仅在播放中有效
+     *
+     * @return 需要发送停止事件时返回 true
+     */
+    public boolean onPause() {
+        if (state != State.PLAYING) {
+            suppressed++;
+            return false;
+        }
+        transition(State.PAUSED, lyric);
+        return true;
+    }
+
+    /**
+     * 上报停止
+     * <p>
+     * 已暂停时只更新状态，不再重复发送。
+     *
+     * @return 需要发送停止事件时返回 true
+     */
+    public boolean onStop() {
+        State previous = state;
+        if (previous == State.STOPPED) {
+            suppressed++;
+            return false;
+        }
+        transition(State.STOPPED, null);
+        if (previous == State.PAUSED) {
+            suppressed++;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 回到初始状态
+     */
+    public void reset() {
+        lyric = null;
+        state = State.IDLE;
+    }
+
+    @NonNull
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * 当前播放或暂停中的歌词
+     */
+    @Nullable
+    public String getLyric() {
+        return lyric;
+    }
+
+    @NonNull
+    public Stats getStats() {
+        return new Stats(state, transitions, suppressed);
+    }
+
+    private void transition(@NonNull State state, @Nullable String lyric) {
+        this.lyric = lyric;
+        this.state = state;
+        transitions++;
+    }
+
+    /**
+     * 歌词会话统计快照
+     *
+     * @param state       当前状态
+     * @param transitions 状态变化次数
+     * @param suppressed  被去重、无需发送的上报次数
+     */
+    public record Stats(@NonNull State state, long transitions, long suppressed) {
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * This file is part of SuperLyric.
+
+ * SuperLyric is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HChenX
+ */
+package com.hchen.superlyric.meizu.helper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 带缓存的类解析器
+ * <p>
+ * 用于替代 Class.forName 的 Hook 中每次都重新走一遍 ClassLoader 的查找：
+ * 命中的结果会被记住，找不到的类名进入有界的负缓存，避免重复构造异常。
+ * 指定的类名可以被重定向到其他类。
+ *
+ * @author 焕晨HChen
+ */
+public final class ClassResolver {
+    private final ConcurrentHashMap<String, Class<?>> redirectMap = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Class<?>> resolvedMap = new ConcurrentHashMap<>();
+    private final LinkedHashMap<String, Boolean> missMap;
+    private volatile ClassLoader classLoader;
+
+    private final AtomicLong intercepted = new AtomicLong();
+    private final AtomicLong passedThrough = new AtomicLong();
+    private final AtomicLong negativeHits = new AtomicLong();
+
+    public ClassResolver(int maxMisses) {
+        this.missMap = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > maxMisses;
+            }
+        };
+    }
+
+    /**
+     * 将指定类名重定向到目标类
+     */
+    public void addRedirect(@NonNull String className, @NonNull Class<?> target) {
+        redirectMap.put(className, target);
+    }
+
+    public void removeRedirect(@NonNull String className) {
+        redirectMap.remove(className);
+    }
+
+    /**
+     * 解析类名
+     *
+     * @param className   类名
+     * @param classLoader 用于查找的 ClassLoader，变化时会清空缓存
+     * @return 需要替换的结果，返回 null 时应交由原方法处理
+     */
+    @Nullable
+    public Class<?> resolve(@NonNull String className, @Nullable ClassLoader classLoader) {
+        Class<?> clazz = redirectMap.get(className);
+        if (clazz != null) {
+            intercepted.incrementAndGet();
+            return clazz;
+        }
+        if (classLoader == null) {
+            passedThrough.incrementAndGet();
+            return null;
+        }
+
+        if (this.classLoader != classLoader) {
+            // ClassLoader 已经变化 (例如热更新)，旧的结果不再可靠
+            resolvedMap.clear();
+            synchronized (missMap) {
+                missMap.clear();
+            }
+            this.classLoader = classLoader;
+        }
+
+        clazz = resolvedMap.get(className);
+        if (clazz != null) {
+            intercepted.incrementAndGet();
+            return clazz;
+        }
+
+        synchronized (missMap) {
+            if (missMap.get(className) != null) {
+                negativeHits.incrementAndGet();
+                passedThrough.incrementAndGet();
+                return null;
+            }
+        }
+
+        try {
+            clazz = classLoader.loadClass(className);
+        } catch (Throwable ignore) {
+            synchronized (missMap) {
+                missMap.put(className, Boolean.TRUE);
+            }
+            passedThrough.incrementAndGet();
+            return null;
+        }
+
+        resolvedMap.put(className, clazz);
+        intercepted.incrementAndGet();
+        return clazz;
+    }
+
+    @NonNull
+    public Stats getStats() {
+        int misses;
+        synchronized (missMap) {
+            misses = missMap.size();
+        }
+        return new Stats(intercepted.get(), passedThrough.get(), negativeHits.get(), resolvedMap.size(), misses);
+    }
+
+    /**
+     * 类解析统计快照
+     *
+     * @param intercepted   由解析器给出结果的调用次数
+     * @param passedThrough 交由原方法处理的调用次数
+     * @param negativeHits  命中负缓存的次数
+     * @param resolved      已缓存的类数量
+     * @param misses        负缓存中的类名数量
+     */
+    public record Stats(long intercepted, long passedThrough, long negativeHits, int resolved, int misses) {
+    }
+}
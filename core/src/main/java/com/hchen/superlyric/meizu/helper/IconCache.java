@@ -0,0 +1,131 @@
+/*
+ * This file is part of SuperLyric.
+
+ * SuperLyric is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HChenX
+ */
+package com.hchen.superlyric.meizu.helper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 小图标编码缓存
+ * <p>
+ * 按 (包名, 资源 id) 缓存编码后的 base64 字符串，按字节数做 LRU 淘汰，
+ * 同一个图标只在第一次出现时解码与编码。
+ * <p>
+ * 位图等非资源图标每次通知都会携带新的对象，且内容无法低成本地比较，因此不缓存。
+ *
+ * @author 焕晨HChen
+ */
+public final class IconCache {
+    private final long maxBytes;
+    private final LinkedHashMap<Key, String> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * 缓存键
+     *
+     * @param packageName 图标资源所属包名
+     * @param resId       资源 id
+     */
+    public record Key(@Nullable String packageName, int resId) {
+        @NonNull
+        public static Key ofResource(@Nullable String packageName, int resId) {
+            return new Key(packageName, resId);
+        }
+    }
+
+    public IconCache(long maxBytes) {
+        if (maxBytes <= 0) throw new IllegalArgumentException("Max bytes must be positive: " + maxBytes);
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * 获取缓存的编码结果，未命中时调用 encoder 编码并写入缓存
+     *
+     * @return 编码结果，encoder 返回 null 时不缓存并返回 null
+     */
+    @Nullable
+    public String get(@NonNull Key key, @NonNull Supplier<String> encoder) {
+        synchronized (this) {
+            String value = cache.get(key);
+            if (value != null) {
+                hits++;
+                return value;
+            }
+            misses++;
+        }
+
+        // 编码较为耗时，不在锁内进行
+        String value = encoder.get();
+        if (value == null) return null;
+
+        synchronized (this) {
+            String old = cache.put(key, value);
+            if (old != null) bytes -= sizeOf(old);
+            bytes += sizeOf(value);
+            trim();
+        }
+        return value;
+    }
+
+    public synchronized void clear() {
+        cache.clear();
+        bytes = 0;
+    }
+
+    @NonNull
+    public synchronized Stats getStats() {
+        return new Stats(cache.size(), bytes, maxBytes, hits, misses, evictions);
+    }
+
+    private void trim() {
+        Iterator<Map.Entry<Key, String>> iterator = cache.entrySet().iterator();
+        while (bytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<Key, String> eldest = iterator.next();
+            bytes -= sizeOf(eldest.getValue());
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    private static long sizeOf(@NonNull String value) {
+        // base64 只包含 ASCII 字符，按每字符一字节计算
+        return value.length();
+    }
+
+    /**
+     * 图标缓存统计快照
+     *
+     * @param size      缓存条目数
+     * @param bytes     当前占用字节数
+     * @param maxBytes  最大字节数
+     * @param hits      命中次数
+     * @param misses    未命中次数
+     * @param evictions 淘汰次数
+     */
+    public record Stats(int size, long bytes, long maxBytes, long hits, long misses, long evictions) {
+    }
+}
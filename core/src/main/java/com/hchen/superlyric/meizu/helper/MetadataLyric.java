@@ -0,0 +1,62 @@
+/*
+ * This file is part of SuperLyric.
+
+ * SuperLyric is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HChenX
+ */
+package com.hchen.superlyric.meizu.helper;
+
+import androidx.annotation.Nullable;
+
+import java.util.Objects;
+
+/**
+ * 从媒体元数据中提取歌词
+ * <p>
+ * 部分应用在开启车载或蓝牙歌词后会把当前歌词写入标题字段。
+ *
+ * @author 焕晨HChen
+ */
+public final class MetadataLyric {
+    public static final String KEY_TITLE = "android.media.metadata.TITLE";
+    // QQLite 表示标题无需更新的占位值
+    private static final String QQLITE_NOT_UPDATE = "NEED_NOT_UPDATE_TITLE";
+
+    private MetadataLyric() {
+    }
+
+    /**
+     * MediaMetadataCompat.Builder#putString
+     *
+     * @return 写入的是标题时返回歌词，否则返回 null
+     */
+    @Nullable
+    public static String fromMediaMetadata(@Nullable String key, @Nullable String value) {
+        if (!Objects.equals(KEY_TITLE, key)) return null;
+        return value;
+    }
+
+    /**
+     * QQLite RemoteControlManager#updataMetaData
+     *
+     * @return 需要更新时返回歌词，否则返回 null
+     */
+    @Nullable
+    public static String fromQQLite(@Nullable String value) {
+        if (value == null || value.isEmpty()) return null;
+        if (Objects.equals(value, QQLITE_NOT_UPDATE)) return null;
+        return value;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * This file is part of SuperLyric.
+
+ * SuperLyric is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HChenX
+ */
+package com.hchen.superlyric.meizu.helper;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 通知去重
+ * <p>
+ * 同一条通知可能依次经过 media3、NotificationManagerCompat 与 NotificationManager 多层 Hook。
+ * 同一线程内嵌套进入的同一通知只处理最外层一次。
+ * <p>
+ * 去重只限于同一次嵌套调用：重复发布的通知可能复用同一个对象但已修改内容，
+ * 因此每次重新发布都会处理，相同歌词的重复发送交由 LyricSession 过滤。
+ * <p>
+ * 每次 {@link #enter} 都必须有对应的 {@link #exit}。
+ *
+ * @author 焕晨HChen
+ */
+public final class NotificationDedupe {
+    private final ThreadLocal<Frame> frames = ThreadLocal.withInitial(Frame::new);
+
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder reentrant = new LongAdder();
+
+    /**
+     * 进入一层通知 Hook
+     *
+     * @return 需要处理时返回 true，嵌套进入的同一通知返回 false
+     */
+    public boolean enter(@NonNull Object notification) {
+        Frame frame = frames.get();
+        frame.depth++;
+        if (frame.depth > 1 && frame.notification == notification) {
+            reentrant.increment();
+            return false;
+        }
+        if (frame.depth == 1) frame.notification = notification;
+
+        processed.increment();
+        return true;
+    }
+
+    /**
+     * 离开一层通知 Hook
+     */
+    public void exit() {
+        Frame frame = frames.get();
+        if (frame.depth == 0) return;
+        if (--frame.depth == 0) frame.notification = null;
+    }
+
+    @NonNull
+    public Stats getStats() {
+        return new Stats(processed.sum(), reentrant.sum());
+    }
+
+    private static final class Frame {
+        int depth;
+        Object notification;
+    }
+
+    /**
+     * 通知去重统计快照
+     *
+     * @param processed 实际处理的次数
+     * @param reentrant 同一线程嵌套进入而被跳过的次数
+     */
+    public record Stats(long processed, long reentrant) {
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * This file is part of SuperLyric.
+
+ * SuperLyric is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HChenX
+ */
+package com.hchen.superlyric.meizu.helper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 通知快速过滤
+ * <p>
+ * 只根据 flags、id、tag 与 tickerText 的长度判断通知是否需要处理，过程中不分配对象。
+ * 出现过歌词的通知位 (tag, id) 会被记住，只有这些通知位上长度与占位文本一致的通知才需要继续比对占位文本。
+ *
+ * @author 焕晨HChen
+ */
+public final class NotificationFilter {
+    public static final int REJECTED = 0;
+    public static final int LYRIC = 1;
+    public static final int PLACEHOLDER_CANDIDATE = 2;
+    // 与 MeiZuNotification 中的定义保持一致，这里不能依赖 Android 类
+    public static final int FLAG_ALWAYS_SHOW_TICKER = 0x01000000;
+    public static final int FLAG_ONLY_UPDATE_TICKER = 0x02000000;
+    private static final int LYRIC_FLAGS = FLAG_ALWAYS_SHOW_TICKER | FLAG_ONLY_UPDATE_TICKER;
+    private static final long EMPTY = 0L;
+
+    private final AtomicLongArray lyricSlots;
+    private final int mask;
+    private final LongAdder seen = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder lyric = new LongAdder();
+    private final LongAdder costNanos = new LongAdder();
+
+    /**
+     * @param capacity 记录的歌词通知位数量，会向上取整为 2 的幂
+     */
+    public NotificationFilter(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.lyricSlots = new AtomicLongArray(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * 通知 flags 是否带有歌词标记
+     */
+    public static boolean hasLyricFlags(int flags) {
+        return (flags & LYRIC_FLAGS) != 0;
+    }
+
+    /**
+     * 对通知进行分类
+     *
+     * @return {@link #LYRIC} 带有歌词标记；{@link #PLACEHOLDER_CANDIDATE} 可能是占位文本，需要进一步比对；
+     * {@link #REJECTED} 无需处理
+     */
+    public int classify(@Nullable String tag, int id, int flags, @Nullable CharSequence ticker, @NonNull TickerPhrases tickerPhrases) {
+        seen.increment();
+        if (hasLyricFlags(flags)) {
+            lyric.increment();
+            markLyricSlot(tag, id);
+            return LYRIC;
+        }
+        if (ticker != null && tickerPhrases.isPlaceholderLength(ticker.length()) && isLyricSlot(tag, id))
+            return PLACEHOLDER_CANDIDATE;
+
+        rejected.increment();
+        return REJECTED;
+    }
+
+    /**
+     * 是否是曾经携带过歌词的通知位
+     */
+    public boolean isLyricSlot(@Nullable String tag, int id) {
+        long key = slotKey(tag, id);
+        int index = index(key);
+        for (int i = 0; i <= mask; i++) {
+            long value = lyricSlots.get((index + i) & mask);
+            if (value == key) return true;
+            if (value == EMPTY) return false;
+        }
+        return false;
+    }
+
+    /**
+     * 累计一次处理的耗时
+     */
+    public void recordCost(long nanos) {
+        costNanos.add(nanos);
+    }
+
+    @NonNull
+    public Stats getStats() {
+        return new Stats(seen.sum(), rejected.sum(), lyric.sum(), costNanos.sum());
+    }
+
+    private void markLyricSlot(@Nullable String tag, int id) {
+        long key = slotKey(tag, id);
+        int index = index(key);
+        for (int i = 0; i <= mask; i++) {
+            int slot = (index + i) & mask;
+            long value = lyricSlots.get(slot);
+            if (value == key) return;
+            if (value == EMPTY && lyricSlots.compareAndSet(slot, EMPTY, key)) return;
+            if (lyricSlots.get(slot) == key) return;
+        }
+        // 表已满时覆盖起始位置，歌词通知位通常只有一两个
+        lyricSlots.set(index, key);
+    }
+
+    private static long slotKey(@Nullable String tag, int id) {
+        long key = ((long) (tag == null ? 0 : tag.hashCode()) << 32) | (id & 0xFFFFFFFFL);
+        return key == EMPTY ? 1L : key;
+    }
+
+    private int index(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & mask;
+    }
+
+    /**
+     * 通知过滤统计快照
+     *
+     * @param seen      检查过的通知数
+     * @param rejected  被快速放行 (不处理) 的通知数
+     * @param lyric     带有歌词标记的通知数
+     * @param costNanos 通知 Hook 累计耗时 (ns)
+     */
+    public record Stats(long seen, long rejected, long lyric, long costNanos) {
+        public long averageCostNanos() {
+            return seen == 0 ? 0 : costNanos / seen;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * This file is part of SuperLyric.
+
+ * SuperLyric is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HChenX
+ */
+package com.hchen.superlyric.meizu.helper;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 多模式子串匹配 (Aho-Corasick)
+ * <p>
+ * 构建后只扫描一遍文本即可判断是否包含任意一个短语，短语数量增加不会带来额外的线性扫描。
+ * 状态转移保存在按字符排序的扁平数组中，匹配过程不分配对象。
+ *
+ * @author 焕晨HChen
+ */
+public final class PhraseMatcher {
+    public static final int NO_MATCH = -1;
+    private final String[] phrases;
+    // 状态 s 的转移位于 edgeChars/edgeTargets 的 [offsets[s], offsets[s + 1]) 区间
+    private final int[] offsets;
+    private final char[] edgeChars;
+    private final int[] edgeTargets;
+    private final int[] fail;
+    // 到达该状态时命中的短语下标，包含失败链上的命中
+    private final int[] output;
+
+    public PhraseMatcher(@NonNull String... phrases) {
+        this.phrases = phrases.clone();
+
+        ArrayList<TreeMap<Character, Integer>> trie = new ArrayList<>();
+        ArrayList<Integer> terminal = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        terminal.add(NO_MATCH);
+        for (int i = 0; i < this.phrases.length; i++) {
+            String phrase = this.phrases[i];
+            if (phrase == null || phrase.isEmpty()) continue;
+
+            int state = 0;
+            for (int j = 0; j < phrase.length(); j++) {
+                Integer next = trie.get(state).get(phrase.charAt(j));
+                if (next == null) {
+                    next = trie.size();
+                    trie.get(state).put(phrase.charAt(j), next);
+                    trie.add(new TreeMap<>());
+                    terminal.add(NO_MATCH);
+                }
+                state = next;
+            }
+            if (terminal.get(state) == NO_MATCH) terminal.set(state, i);
+        }
+
+        int states = trie.size();
+        int edges = 0;
+        for (TreeMap<Character, Integer> map : trie) edges += map.size();
+        offsets = new int[states + 1];
+        edgeChars = new char[edges];
+        edgeTargets = new int[edges];
+        for (int s = 0, e = 0; s < states; s++) {
+            offsets[s] = e;
+            for (Map.Entry<Character, Integer> entry : trie.get(s).entrySet()) {
+                edgeChars[e] = entry.getKey();
+                edgeTargets[e] = entry.getValue();
+                e++;
+            }
+            offsets[s + 1] = e;
+        }
+
+        fail = new int[states];
+        output = new int[states];
+        output[0] = NO_MATCH;
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int e = offsets[0]; e < offsets[1]; e++) {
+            int child = edgeTargets[e];
+            fail[child] = 0;
+            output[child] = terminal.get(child);
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int e = offsets[state]; e < offsets[state + 1]; e++) {
+                int child = edgeTargets[e];
+                int f = fail[state];
+                int next;
+                while ((next = next(f, edgeChars[e])) < 0 && f != 0) f = fail[f];
+                fail[child] = next < 0 ? 0 : next;
+                output[child] = terminal.get(child) != NO_MATCH ? terminal.get(child) : output[fail[child]];
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * 查找文本中首个命中的短语
+     *
+     * @return 命中短语在构造参数中的下标，未命中返回 {@link #NO_MATCH}
+     */
+    public int find(@NonNull CharSequence text) {
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int next;
+            while ((next = next(state, c)) < 0 && state != 0) state = fail[state];
+            state = next < 0 ? 0 : next;
+            if (output[state] != NO_MATCH) return output[state];
+        }
+        return NO_MATCH;
+    }
+
+    public boolean matches(@NonNull CharSequence text) {
+        return find(text) != NO_MATCH;
+    }
+
+    @NonNull
+    public String getPhrase(int index) {
+        return phrases[index];
+    }
+
+    public int size() {
+        return phrases.length;
+    }
+
+    private int next(int state, char c) {
+        int low = offsets[state];
+        int high = offsets[state + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char value = edgeChars[mid];
+            if (value < c) low = mid + 1;
+            else if (value > c) high = mid - 1;
+            else return edgeTargets[mid];
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * This file is part of SuperLyric.
+
+ * SuperLyric is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HChenX
+ */
+package com.hchen.superlyric.meizu.helper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * tickerText 规范化
+ * <p>
+ * 只读取一遍 CharSequence，去除首尾空白后生成唯一一个 String，规则与 {@link String#trim()} 一致。
+ *
+ * @author 焕晨HChen
+ */
+public final class TickerNormalizer {
+    private TickerNormalizer() {
+    }
+
+    /**
+     * @return 去除首尾空白后的文本，为空时返回 null
+     */
+    @Nullable
+    public static String normalize(@Nullable CharSequence text) {
+        if (text == null) return null;
+        if (text instanceof String string) {
+            String trimmed = string.trim();
+            return trimmed.isEmpty() ? null : trimmed;
+        }
+
+        int start = 0;
+        int end = text.length();
+        while (start < end && text.charAt(start) <= ' ') start++;
+        while (end > start && text.charAt(end - 1) <= ' ') end--;
+        if (start == end) return null;
+        return new StringBuilder(end - start).append(text, start, end).toString();
+    }
+
+    /**
+     * 判断文本内容是否与给定字符串完全一致，不会创建新的 String
+     */
+    public static boolean contentEquals(@Nullable CharSequence text, @NonNull String value) {
+        return text != null && text.length() == value.length() && value.contentEquals(text);
+    }
+}
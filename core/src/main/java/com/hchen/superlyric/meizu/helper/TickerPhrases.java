@@ -0,0 +1,130 @@
+/*
+ * This file is part of SuperLyric.
+
+ * SuperLyric is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HChenX
+ */
+package com.hchen.superlyric.meizu.helper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按包名配置的 tickerText 短语表
+ * <p>
+ * 停止短语：歌词中包含即视为停止播放，由 {@link PhraseMatcher} 一次扫描完成匹配；
+ * 占位短语：歌词标记消失后 tickerText 与之完全一致时视为停止播放。
+ *
+ * @author 焕晨HChen
+ */
+public final class TickerPhrases {
+    public static final int NONE = 0;
+    public static final int STOP = 1;
+    public static final int PLACEHOLDER = 2;
+    private static final String[] DEFAULT_STOP_PHRASES = {"纯音乐", "无歌词", "歌曲已暂停，即将隐藏歌词"};
+    private static final ConcurrentHashMap<String, TickerPhrases> tickerPhrasesMap = new ConcurrentHashMap<>();
+
+    static {
+        register("com.netease.cloudmusic", new Builder()
+                .addStopPhrases(DEFAULT_STOP_PHRASES)
+                .addPlaceholder("网易云音乐正在播放")
+                .build()
+        );
+    }
+
+    private final PhraseMatcher stopMatcher;
+    private final String[] placeholders;
+    private final BitSet placeholderLengths = new BitSet();
+
+    private TickerPhrases(@NonNull List<String> stopPhrases, @NonNull List<String> placeholders) {
+        this.stopMatcher = new PhraseMatcher(stopPhrases.toArray(new String[0]));
+        this.placeholders = placeholders.toArray(new String[0]);
+        for (String placeholder : this.placeholders) {
+            placeholderLengths.set(placeholder.length());
+        }
+    }
+
+    /**
+     * 为指定应用设置短语表
+     */
+    public static void register(@NonNull String packageName, @NonNull TickerPhrases tickerPhrases) {
+        tickerPhrasesMap.put(packageName, tickerPhrases);
+    }
+
+    /**
+     * 获取指定应用的短语表，未配置时使用默认停止短语
+     */
+    @NonNull
+    public static TickerPhrases forPackage(@NonNull String packageName) {
+        return tickerPhrasesMap.computeIfAbsent(packageName, name -> new Builder().addStopPhrases(DEFAULT_STOP_PHRASES).build());
+    }
+
+    /**
+     * 对规范化后的歌词文本进行分类
+     *
+     * @return {@link #STOP} 或 {@link #NONE}
+     */
+    public int classifyLyric(@NonNull CharSequence lyric) {
+        return stopMatcher.matches(lyric) ? STOP : NONE;
+    }
+
+    /**
+     * 判断不带歌词标记的 tickerText 是否为占位文本
+     *
+     * @return {@link #PLACEHOLDER} 或 {@link #NONE}
+     */
+    public int classifyTicker(@Nullable CharSequence ticker) {
+        if (ticker == null || !isPlaceholderLength(ticker.length())) return NONE;
+        for (String placeholder : placeholders) {
+            if (TickerNormalizer.contentEquals(ticker, placeholder)) return PLACEHOLDER;
+        }
+        return NONE;
+    }
+
+    /**
+     * 是否存在该长度的占位文本，用于在比对内容前快速排除
+     */
+    public boolean isPlaceholderLength(int length) {
+        return placeholderLengths.get(length);
+    }
+
+    public static class Builder {
+        private final ArrayList<String> stopPhrases = new ArrayList<>();
+        private final ArrayList<String> placeholders = new ArrayList<>();
+
+        @NonNull
+        public Builder addStopPhrases(@NonNull String... phrases) {
+            Collections.addAll(stopPhrases, phrases);
+            return this;
+        }
+
+        @NonNull
+        public Builder addPlaceholder(@NonNull String placeholder) {
+            placeholders.add(placeholder);
+            return this;
+        }
+
+        @NonNull
+        public TickerPhrases build() {
+            return new TickerPhrases(stopPhrases, placeholders);
+        }
+    }
+}
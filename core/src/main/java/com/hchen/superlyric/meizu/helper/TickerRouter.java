@@ -0,0 +1,87 @@
+/*
+ * This file is part of SuperLyric.
+
+ * SuperLyric is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HChenX
+ */
+package com.hchen.superlyric.meizu.helper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * 根据歌词通知的分类结果决定发送歌词还是停止
+ * <p>
+ * MeizuHelper 的通知 Hook 与离线回放共用此逻辑，小图标等需要 Android 环境的数据由调用方在发送歌词时获取。
+ * 调用方使用常驻的 {@link Target} 并通过参数传入当前通知，被过滤的通知不会产生任何分配。
+ *
+ * @author 焕晨HChen
+ */
+public final class TickerRouter {
+    private TickerRouter() {
+    }
+
+    /**
+     * 路由结果的接收方
+     *
+     * @param <T> 调用方附带的参数类型
+     */
+    public interface Target<T> {
+        /**
+         * @param lyric 去除首尾空白后的歌词
+         * @param arg   调用 {@link #route} 时传入的参数
+         */
+        void onLyric(@NonNull String lyric, T arg);
+
+        void onStop(T arg);
+    }
+
+    /**
+     * 处理一条通知
+     *
+     * @param tag    通知 tag
+     * @param id     通知 id
+     * @param flags  通知 flags
+     * @param ticker 通知 tickerText
+     * @param arg    原样交给 target 的参数
+     */
+    public static <T> void route(@NonNull NotificationFilter filter, @NonNull TickerPhrases phrases,
+                                 @Nullable String tag, int id, int flags, @Nullable CharSequence ticker,
+                                 T arg, @NonNull Target<T> target) {
+        switch (filter.classify(tag, id, flags, ticker, phrases)) {
+            case NotificationFilter.LYRIC -> {
+                if (ticker == null) {
+                    target.onStop(arg);
+                    return;
+                }
+
+                String lyric = TickerNormalizer.normalize(ticker);
+                if (lyric == null) return;
+                if (phrases.classifyLyric(lyric) == TickerPhrases.STOP) {
+                    target.onStop(arg);
+                    return;
+                }
+
+                target.onLyric(lyric, arg);
+            }
+            case NotificationFilter.PLACEHOLDER_CANDIDATE -> {
+                if (phrases.classifyTicker(ticker) == TickerPhrases.PLACEHOLDER)
+                    target.onStop(arg);
+            }
+            default -> {
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * This file is part of SuperLyric.
+
+ * SuperLyric is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HChenX
+ */
+package com.hchen.superlyric.meizu.metrics;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 固定分桶的耗时直方图
+ * <p>
+ * 第 0 个桶记录小于 1us 的样本，第 i 个桶记录 [2^(i-1), 2^i) us 的样本，最后一个桶收纳更长的样本。
+ * 记录过程只有原子操作，不加锁也不分配对象；各桶使用分段计数的 {@link LongAdder}，多线程同时记录时不会争用同一个计数。
+ *
+ * @author 焕晨HChen
+ */
+public final class Histogram {
+    // 最后一个常规桶的上界约为 1s
+    public static final int BUCKET_COUNT = 22;
+    private final LongAdder[] buckets = new LongAdder[BUCKET_COUNT];
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public Histogram() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        buckets[bucketOf(nanos / 1000)].increment();
+        totalNanos.add(nanos);
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+            max = maxNanos.get();
+        }
+    }
+
+    /**
+     * 记录从 startNanos 到现在的耗时
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    @NonNull
+    public Snapshot getSnapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets[i].sum();
+            count += counts[i];
+        }
+        return new Snapshot(count, totalNanos.sum(), maxNanos.get(), counts);
+    }
+
+    static int bucketOf(long micros) {
+        if (micros <= 0) return 0;
+        return Math.min(64 - Long.numberOfLeadingZeros(micros), BUCKET_COUNT - 1);
+    }
+
+    /**
+     * 桶 index 的上界 (us)，最后一个桶没有上界
+     */
+    public static long bucketUpperMicros(int index) {
+        if (index >= BUCKET_COUNT - 1) return Long.MAX_VALUE;
+        return 1L << index;
+    }
+
+    /**
+     * 直方图快照
+     *
+     * @param count      样本数
+     * @param totalNanos 样本耗时总和 (ns)
+     * @param maxNanos   最大耗时 (ns)
+     * @param buckets    各桶样本数
+     */
+    public record Snapshot(long count, long totalNanos, long maxNanos, @NonNull long[] buckets) {
+        public long averageNanos() {
+            return count == 0 ? 0 : totalNanos / count;
+        }
+
+        /**
+         * 百分位数所在桶的上界 (us)，不超过最大耗时
+         *
+         * @param percentile 0 ~ 100
+         */
+        public long percentileMicros(double percentile) {
+            if (count == 0) return 0;
+
+            long target = (long) Math.ceil(count * percentile / 100.0);
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= Math.max(target, 1)) {
+                    return Math.min(bucketUpperMicros(i), maxNanos / 1000);
+                }
+            }
+            return maxNanos / 1000;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "count=" + count +
+                    ", avg=" + averageNanos() / 1000 + "us" +
+                    ", p50<=" + percentileMicros(50) + "us" +
+                    ", p90<=" + percentileMicros(90) + "us" +
+                    ", p99<=" + percentileMicros(99) + "us" +
+                    ", max=" + maxNanos / 1000 + "us";
+        }
+    }
+}
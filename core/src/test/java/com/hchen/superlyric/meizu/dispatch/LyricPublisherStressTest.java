@@ -0,0 +1,196 @@
+/*
+ * This file is part of SuperLyric.
+
+ * SuperLyric is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HChenX
+ */
+package com.hchen.superlyric.meizu.dispatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 多线程并发上报歌词、暂停与停止时，最后送达的事件必须与会话的最终状态一致
+ *
+ * @author 焕晨HChen
+ */
+public class LyricPublisherStressTest {
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 500;
+    // 每轮中每个线程的上报次数，较少的次数让各线程在每轮结尾处真正并发
+    private static final int OPERATIONS = 4;
+    private static final long DRAIN_TIMEOUT_MILLIS = 10_000L;
+
+    @Test
+    public void lastDeliveredEventMatchesFinalState() throws Exception {
+        run(0);
+    }
+
+    @Test
+    public void lastDeliveredEventMatchesFinalStateWhileCoalescing() throws Exception {
+        run(1);
+    }
+
+    @Test
+    public void foreignStopIsNotCoalesced() throws Exception {
+        ArrayList<LyricEvent> delivered = new ArrayList<>();
+        LyricDispatcher dispatcher = new LyricDispatcher("Stress-Dispatcher", 64,
+                LyricDispatcher.OverflowPolicy.DROP_OLDEST, events -> {
+            synchronized (delivered) {
+                delivered.addAll(events);
+            }
+            return true;
+        });
+        dispatcher.setCoalesceInterval(1000);
+        LyricPublisher publisher = new LyricPublisher(new LyricSession(), dispatcher);
+
+        // 挂起分发，让停止事件在新歌词到来时仍在队列中
+        dispatcher.hold(DRAIN_TIMEOUT_MILLIS);
+        publisher.publishLyric("first", lyric -> lyric);
+        publisher.publishStop(() -> "stop");
+        dispatcher.post(new LyricEvent(LyricEvent.Kind.STOP, "foreign"));
+        publisher.publishLyric("second", lyric -> lyric);
+        dispatcher.release();
+
+        assertTrue("Dispatcher did not drain", drain(dispatcher));
+        synchronized (delivered) {
+            List<Object> payloads = new ArrayList<>();
+            for (LyricEvent event : delivered) {
+                payloads.add(event.payload);
+            }
+            assertEquals(List.of("foreign", "second"), payloads);
+        }
+    }
+
+    /**
+     * 每轮所有线程同时开始上报，全部结束并等待分发完成后检查最后送达的事件
+     */
+    private static void run(long coalesceMillis) throws Exception {
+        RecordingSink sink = new RecordingSink();
+        LyricDispatcher dispatcher = new LyricDispatcher("Stress-Dispatcher", 64,
+                LyricDispatcher.OverflowPolicy.DROP_OLDEST, sink);
+        dispatcher.setCoalesceInterval(coalesceMillis);
+        LyricSession session = new LyricSession();
+        LyricPublisher publisher = new LyricPublisher(session, dispatcher);
+
+        CyclicBarrier barrier = new CyclicBarrier(THREADS + 1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            Random random = new Random(i);
+            Thread thread = new Thread(() -> {
+                try {
+                    for (int round = 0; round < ROUNDS; round++) {
+                        barrier.await();
+                        for (int n = 0; n < OPERATIONS; n++) {
+                            operate(publisher, random);
+                        }
+                        barrier.await();
+                    }
+                } catch (InterruptedException | BrokenBarrierException e) {
+                    failure.compareAndSet(null, e);
+                }
+            }, "Stress-Publisher-" + i);
+            thread.start();
+            threads.add(thread);
+        }
+
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                barrier.await();
+                barrier.await();
+                assertTrue("Dispatcher did not drain", drain(dispatcher));
+                assertLastEventMatches(session, sink.last, round);
+            }
+        } finally {
+            for (Thread thread : threads) {
+                thread.interrupt();
+            }
+            barrier.reset();
+        }
+        assertNull(failure.get());
+    }
+
+    private static void operate(@NonNull LyricPublisher publisher, @NonNull Random random) {
+        switch (random.nextInt(3)) {
+            case 0 -> publisher.publishLyric(" lyric " + random.nextInt(4) + " ", lyric -> {
+                // 创建事件数据期间让出 CPU，放大状态变化与入队之间的时间窗口
+                Thread.yield();
+                return lyric;
+            });
+            case 1 -> publisher.publishPause(() -> {
+                Thread.yield();
+                return "pause";
+            });
+            default -> publisher.publishStop(() -> {
+                Thread.yield();
+                return "stop";
+            });
+        }
+    }
+
+    private static void assertLastEventMatches(@NonNull LyricSession session, LyricEvent last, int round) {
+        String message = "Round " + round + ", state " + session.getState() + ", last " + last;
+        switch (session.getState()) {
+            case IDLE -> assertNull(message, last);
+            case PLAYING -> {
+                assertNotNull(message, last);
+                assertEquals(message, LyricEvent.Kind.LYRIC, last.kind);
+                assertEquals(message, session.getLyric(), last.payload);
+            }
+            case PAUSED, STOPPED -> {
+                assertNotNull(message, last);
+                assertEquals(message, LyricEvent.Kind.STOP, last.kind);
+            }
+        }
+    }
+
+    private static boolean drain(@NonNull LyricDispatcher dispatcher) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + DRAIN_TIMEOUT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            LyricDispatcher.Stats stats = dispatcher.getStats();
+            if (stats.depth() == 0 && stats.delivered() + stats.buffered() + stats.failed() + stats.dropped() + stats.coalesced() >= stats.posted())
+                return true;
+            Thread.sleep(1);
+        }
+        return false;
+    }
+
+    /**
+     * 按送达顺序记录事件的接收端，只在分发线程上调用
+     */
+    private static final class RecordingSink implements LyricDispatcher.Sink {
+        volatile LyricEvent last;
+
+        @Override
+        public boolean deliver(@NonNull List<LyricEvent> events) {
+            last = events.get(events.size() - 1);
+            return true;
+        }
+    }
+}